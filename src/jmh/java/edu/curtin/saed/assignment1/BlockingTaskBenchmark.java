@@ -0,0 +1,114 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Starts one blocking task per airport, for 10,000 airports (as PROCESS_PER_AIRPORT ingestion
+ * would, with a reader blocked on each airport's request process), on each ExecutorMode, and
+ * measures how long it takes for all of them to be running and then finish once released.
+ *
+ * The auxiliary counters report the number of live platform threads and the growth in resident
+ * memory (from /proc/self/status, so Linux only; -1 elsewhere) while all the tasks are blocked.
+ * VIRTUAL_THREADS needs the benchmark to run on Java 21 or later (e.g. with -PjmhJavaVersion=21;
+ * see build.gradle). On an older JVM, ExecutorMode would quietly fall back to platform threads,
+ * and the two modes would measure the same thing, so the benchmark fails instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingTaskBenchmark
+{
+    private static final int AIRPORTS = 10_000;
+
+    @Param({"PLATFORM_THREADS", "VIRTUAL_THREADS"})
+    public ExecutorMode mode;
+
+    /**
+     * What the tasks left behind while they were all blocked.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint
+    {
+        public long platformThreads;
+        public long residentKiB;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            platformThreads = 0;
+            residentKiB = 0;
+        }
+    }
+
+    @Setup
+    public void checkMode()
+    {
+        if (mode.resolve() != mode) {
+            throw new IllegalStateException(mode + " is not available on Java " + Runtime.version().feature()
+                    + "; run the benchmarks on Java 21 or later (e.g. gradle jmh -PjmhJavaVersion=21)");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void blockThenRelease(Footprint footprint) throws InterruptedException
+    {
+        System.gc();
+        long residentBefore = residentKiB();
+        CountDownLatch started = new CountDownLatch(AIRPORTS);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = mode.newExecutor();
+        try {
+            for (int i = 0; i < AIRPORTS; i++) {
+                executor.submit(() -> {
+                    started.countDown();
+                    release.await();
+                    return null;
+                });
+            }
+            started.await();
+
+            footprint.platformThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+            long residentDuring = residentKiB();
+            footprint.residentKiB = (residentBefore < 0 || residentDuring < 0) ? -1 : residentDuring - residentBefore;
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Tasks did not finish");
+        }
+    }
+
+    /**
+     * Returns this process's resident set size in KiB, or -1 if it can't be read.
+     */
+    private static long residentKiB()
+    {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+        return -1;
+    }
+}
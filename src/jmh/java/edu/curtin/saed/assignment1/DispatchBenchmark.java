@@ -0,0 +1,53 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a full dispatch cycle: queueing a batch of flight requests, dispatching them from the
+ * flight request queue, and one engine tick. The plane speed is high enough that every flight
+ * lands on that tick; their services are then completed instantly, so planes are returned and the
+ * measurement stays in a steady state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DispatchBenchmark
+{
+    private static final double INSTANT_SPEED = 1000.0;
+
+    @Param({"10", "100", "1000"})
+    public int airports;
+
+    @Param({"3", "30"})
+    public int planesPerAirport;
+
+    private Simulation simulation;
+    private List<Airport> airportList;
+
+    @Setup
+    public void setup()
+    {
+        simulation = new Simulation(new NullListener(), airports, planesPerAirport, INSTANT_SPEED);
+        airportList = simulation.getAirports();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int dispatch() throws InterruptedException
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5; i++) {
+            int originId = random.nextInt(airportList.size()) + 1;
+            int destinationId = random.nextInt(airportList.size()) + 1;
+            simulation.getFlightRequestQueue().put(originId, destinationId, System.nanoTime());
+        }
+
+        int dispatched = simulation.dispatchBatch();
+        simulation.getEngine().tick();
+        simulation.completeServicesInstantly();
+        return dispatched;
+    }
+}
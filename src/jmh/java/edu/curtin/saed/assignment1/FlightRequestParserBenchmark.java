@@ -0,0 +1,50 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures parsing a FlightRequestMux-style stream into a FlightRequestRing, and draining it. Run
+ * with "-prof gc" (e.g. via the jmh profilers setting) to check the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FlightRequestParserBenchmark
+{
+    private static final int LINES = 50_000;
+
+    @Param({"10", "1000"})
+    public int airports;
+
+    private byte[] stream;
+    private FlightRequestRing ring;
+    private FlightRequestParser parser;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            text.append(random.nextInt(airports)).append(' ').append(random.nextInt(airports)).append('\n');
+        }
+        stream = text.toString().getBytes(StandardCharsets.US_ASCII);
+        ring = new FlightRequestRing(1 << 17);
+        parser = new FlightRequestParser(ring, FlightRequestParser.NO_FIXED_ORIGIN);
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(LINES)
+    public int parseAndDrain(Blackhole blackhole) throws IOException, InterruptedException
+    {
+        parser.parse(new ByteArrayInputStream(stream));
+        return ring.drain((origin, destination, created) -> blackhole.consume(origin + destination), LINES);
+    }
+}
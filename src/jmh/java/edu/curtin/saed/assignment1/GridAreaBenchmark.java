@@ -0,0 +1,72 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures a full GridArea.layoutChildren() redraw. This needs the JavaFX toolkit, and therefore
+ * a display (or a virtual one, e.g. xvfb-run).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GridAreaBenchmark
+{
+    private static final double AREA_PIXELS = 1000.0;
+
+    @Param({"10", "1000", "10000"})
+    public int icons;
+
+    private GridArea area;
+
+    @Setup
+    public void setup() throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+        } catch (IllegalStateException e) {
+            // Already started by a previous trial in this JVM.
+            started.countDown();
+        }
+        started.await();
+
+        runOnFxThread(() -> {
+            Image image = new Image(GridAreaBenchmark.class.getClassLoader().getResourceAsStream("plane.png"));
+            Random random = new Random(42);
+            area = new GridArea(Simulation.GRID_WIDTH, Simulation.GRID_HEIGHT);
+            area.resize(AREA_PIXELS, AREA_PIXELS);
+            for (int i = 0; i < icons; i++) {
+                area.getIcons().add(new GridAreaIcon(
+                        random.nextDouble() * Simulation.GRID_WIDTH,
+                        random.nextDouble() * Simulation.GRID_HEIGHT,
+                        45.0, 1.0, image, "Plane " + (i + 1)));
+            }
+            area.layoutChildren();
+        });
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void layout() throws InterruptedException
+    {
+        runOnFxThread(area::layoutChildren);
+    }
+
+    private static void runOnFxThread(Runnable task) throws InterruptedException
+    {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                task.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
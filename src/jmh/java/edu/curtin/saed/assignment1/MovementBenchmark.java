@@ -0,0 +1,56 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures one engine tick with every plane in the air, i.e. the per-step movement cost, on a single
+ * thread (see TickScalingBenchmark for multiple threads). The plane speed is tiny so that no flight
+ * lands during the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovementBenchmark
+{
+    private static final double CRAWL_SPEED = 1e-6;
+
+    @Param({"10", "100", "1000"})
+    public int airports;
+
+    @Param({"3", "30", "100", "1000"})
+    public int planesPerAirport;
+
+    private SimulationEngine engine;
+
+    @Setup
+    public void setup()
+    {
+        Simulation simulation = new Simulation(new NullListener(), airports, planesPerAirport, CRAWL_SPEED);
+        List<Airport> airportList = simulation.getAirports();
+        FleetStore fleet = simulation.getFleet();
+        engine = simulation.getEngine();
+        engine.setParallelism(1);
+
+        int i = 0;
+        for (Airport origin : airportList) {
+            Plane plane;
+            while ((plane = simulation.findAvailablePlane(origin)) != null) {
+                Airport destination = airportList.get((origin.getId() + i) % airportList.size());
+                fleet.beginLeg(plane.getIndex(), destination, CRAWL_SPEED, System.nanoTime());
+                engine.launch(plane);
+                i++;
+            }
+        }
+        engine.tick();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int tick()
+    {
+        engine.tick();
+        return engine.getActiveCount();
+    }
+}
@@ -0,0 +1,20 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * A SimulationListener that discards everything, so that benchmarks measure the simulation and
+ * not rendering or output.
+ */
+public class NullListener implements SimulationListener
+{
+    @Override
+    public void statisticsChanged()
+    {
+        // Discarded.
+    }
+
+    @Override
+    public void tickCompleted(long tick)
+    {
+        // Discarded.
+    }
+}
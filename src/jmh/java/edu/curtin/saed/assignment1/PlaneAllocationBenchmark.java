@@ -0,0 +1,44 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures findAvailablePlane() for a random origin airport, followed by returning the plane. Run
+ * with -PjmhThreads=N to measure it under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlaneAllocationBenchmark
+{
+    @Param({"10", "100", "1000"})
+    public int airports;
+
+    @Param({"3", "30"})
+    public int planesPerAirport;
+
+    private Simulation simulation;
+    private List<Airport> airportList;
+
+    @Setup
+    public void setup()
+    {
+        simulation = new Simulation(new NullListener(), airports, planesPerAirport, Simulation.PLANE_SPEED);
+        airportList = simulation.getAirports();
+    }
+
+    @Benchmark
+    public Plane allocateAndRelease()
+    {
+        Airport origin = airportList.get(ThreadLocalRandom.current().nextInt(airportList.size()));
+        Plane plane = simulation.findAvailablePlane(origin);
+        if (plane != null) {
+            plane.setInFlight(false);
+            origin.releasePlane(plane);
+        }
+        return plane;
+    }
+}
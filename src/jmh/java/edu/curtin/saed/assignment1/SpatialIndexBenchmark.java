@@ -0,0 +1,99 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures one tick's worth of spatial index work with planes scattered uniformly over the grid:
+ * moving every plane a little (wandering, and bouncing off the edges, so that none ever lands),
+ * updating its cell, and then running the conflict check (including rebuilding the index's
+ * cell-ordered layout).
+ *
+ * The grid is either the default size, or as large as poisson-load's (where cells the size of the
+ * separation distance would be far too many, so the index makes them bigger).
+ *
+ * With parallelism above 1, the rebuild and the conflict check are split between that many
+ * threads of a ForkJoinPool, as the engine does on a machine with that many processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialIndexBenchmark
+{
+    private static final int AIRPORTS = 100;
+    private static final double SPEED = 0.005;
+
+    @Param({"3000", "10000", "100000"})
+    public int planes;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"10", "100"})
+    public int gridSize;
+
+    private FleetStore fleet;
+    private SpatialIndex index;
+    private double[] velocityX;
+    private double[] velocityY;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup()
+    {
+        Simulation simulation = new Simulation(new NullListener(), AIRPORTS, planes / AIRPORTS, Simulation.PLANE_SPEED);
+        fleet = simulation.getFleet();
+        index = new SpatialIndex(fleet, gridSize, gridSize, Simulation.SEPARATION);
+
+        Random random = new Random(42);
+        velocityX = new double[fleet.size()];
+        velocityY = new double[fleet.size()];
+        for (int i = 0; i < fleet.size(); i++) {
+            fleet.setPosition(i, random.nextDouble() * gridSize, random.nextDouble() * gridSize);
+            double heading = random.nextDouble() * 2.0 * Math.PI;
+            velocityX[i] = Math.cos(heading) * SPEED;
+            velocityY[i] = Math.sin(heading) * SPEED;
+            index.insert(i);
+        }
+        pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int detectConflicts()
+    {
+        // Nothing has moved, but mark a plane as updated so the cell-ordered layout is rebuilt, as
+        // it would be on every tick.
+        index.update(0);
+        return index.detectConflicts((first, second) -> { }, pool);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int moveAndDetectConflicts()
+    {
+        for (int i = 0; i < fleet.size(); i++) {
+            double x = fleet.getX(i) + velocityX[i];
+            double y = fleet.getY(i) + velocityY[i];
+            if (x < 0.0 || x > gridSize) {
+                velocityX[i] = -velocityX[i];
+            }
+            if (y < 0.0 || y > gridSize) {
+                velocityY[i] = -velocityY[i];
+            }
+            fleet.setPosition(i, x, y);
+            index.update(i);
+        }
+        return index.detectConflicts((first, second) -> { }, pool);
+    }
+}
@@ -0,0 +1,61 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures one engine tick with a million planes in the air, stepped by 1 to 8 threads, to show
+ * how the parallel tick scales with cores. (The speed-up can only be as good as the number of
+ * cores actually available; parallelism beyond that just adds overhead.)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TickScalingBenchmark
+{
+    private static final int AIRPORTS = 1000;
+    private static final int PLANES_PER_AIRPORT = 1000;
+    private static final double CRAWL_SPEED = 1e-6;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private SimulationEngine engine;
+
+    @Setup
+    public void setup()
+    {
+        Simulation simulation = new Simulation(new NullListener(), AIRPORTS, PLANES_PER_AIRPORT, CRAWL_SPEED);
+        List<Airport> airportList = simulation.getAirports();
+        FleetStore fleet = simulation.getFleet();
+        engine = simulation.getEngine();
+        engine.setParallelism(parallelism);
+
+        int i = 0;
+        for (Airport origin : airportList) {
+            Plane plane;
+            while ((plane = simulation.findAvailablePlane(origin)) != null) {
+                Airport destination = airportList.get((origin.getId() + i) % airportList.size());
+                fleet.beginLeg(plane.getIndex(), destination, CRAWL_SPEED, System.nanoTime());
+                engine.launch(plane);
+                i++;
+            }
+        }
+        engine.tick();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        engine.stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int tick()
+    {
+        engine.tick();
+        return engine.getActiveCount();
+    }
+}
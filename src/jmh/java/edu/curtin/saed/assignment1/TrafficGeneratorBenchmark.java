@@ -0,0 +1,58 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how fast SyntheticTraffic can produce flight requests for each profile, among 1,000
+ * airports, into a sink that does nothing with them. Each invocation generates the next second's
+ * worth of requests at 1,000,000 per second, as one batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrafficGeneratorBenchmark
+{
+    private static final int AIRPORTS = 1000;
+    private static final int RATE = 1_000_000;
+
+    @Param({"POISSON", "BURSTY", "HUB_AND_SPOKE"})
+    public SyntheticTraffic.Profile profile;
+
+    private SyntheticTraffic traffic;
+    private long untilNanos;
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+        traffic = new SyntheticTraffic(AIRPORTS, profile, RATE, 42);
+        if (profile == SyntheticTraffic.Profile.BURSTY) {
+            traffic.setBursts(1.0, 1000, 4000);  // Same rate throughout, so every invocation is comparable.
+        } else if (profile == SyntheticTraffic.Profile.HUB_AND_SPOKE) {
+            traffic.setHubs(new int[] {0, 1, 2}, SyntheticTraffic.DEFAULT_HUB_SHARE);
+        }
+        untilNanos = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RATE)
+    public int generate(Blackhole blackhole)
+    {
+        untilNanos += TimeUnit.SECONDS.toNanos(1);
+        return traffic.generate(untilNanos, new FlightRequestGenerator.Sink()
+        {
+            @Override
+            public void request(int originIndex, int destinationIndex)
+            {
+                blackhole.consume(originIndex + destinationIndex);
+            }
+
+            @Override
+            public void flush()
+            {
+                blackhole.consume(untilNanos);
+            }
+        });
+    }
+}
@@ -0,0 +1,154 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An airport at a fixed grid location, holding the pool of planes currently parked and available
+ * there. The pool is a lock-free stack, so allocating and releasing planes is O(1) and never
+ * contends with other airports.
+ *
+ * Each airport also has a backlog of flight requests that found no plane available, oldest first.
+ * Deferring a request and matching a landing plane against the backlog both re-check the other
+ * side under the airport's lock, so that a request is never left waiting while a plane sits idle.
+ *
+ * Landed planes are serviced in the airport's ServiceBays before they join the pool.
+ */
+public class Airport
+{
+    private final int id;
+    private final int x, y;
+    private final Deque<Plane> availablePlanes = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger availableCount = new AtomicInteger(0);
+    private final Object backlogLock = new Object();
+    private final Deque<DeferredRequest> backlog = new ArrayDeque<>();
+    private volatile int backlogSize = 0;
+    private final ServiceBays serviceBays = new ServiceBays();
+
+    public Airport(int id, int x, int y)
+    {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public int getX()
+    {
+        return x;
+    }
+
+    public int getY()
+    {
+        return y;
+    }
+
+    public ServiceBays getServiceBays()
+    {
+        return serviceBays;
+    }
+
+    /**
+     * Takes a plane from this airport's pool, or returns null if none are available.
+     */
+    public Plane acquirePlane()
+    {
+        Plane plane = availablePlanes.pollFirst();
+        if (plane != null) {
+            availableCount.decrementAndGet();
+        }
+        return plane;
+    }
+
+    /**
+     * Returns a plane to (or adds a newly-arrived plane to) this airport's pool.
+     */
+    public void releasePlane(Plane plane)
+    {
+        availablePlanes.push(plane);
+        availableCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of planes available here. This is only approximate while planes are
+     * concurrently being acquired and released.
+     */
+    public int getAvailableCount()
+    {
+        return availableCount.get();
+    }
+
+    /**
+     * Takes a plane from this airport's pool or, if none are available, adds the given request to
+     * the end of the backlog and returns null.
+     */
+    public Plane acquirePlaneOrDefer(DeferredRequest request)
+    {
+        Plane plane = acquirePlane();
+        if (plane == null) {
+            synchronized (backlogLock) {
+                plane = acquirePlane();  // A plane may have landed in the meantime.
+                if (plane == null) {
+                    backlog.addLast(request);
+                    backlogSize = backlog.size();
+                }
+            }
+        }
+        return plane;
+    }
+
+    /**
+     * Adds a request to the end of the backlog without looking for a plane, e.g. when restoring a
+     * snapshot.
+     */
+    public void defer(DeferredRequest request)
+    {
+        synchronized (backlogLock) {
+            backlog.addLast(request);
+            backlogSize = backlog.size();
+        }
+    }
+
+    /**
+     * Gives a plane that has just arrived here to the oldest request in the backlog, and returns
+     * that request, or (if the backlog is empty) returns the plane to the pool and returns null.
+     */
+    public DeferredRequest releasePlaneOrMatch(Plane plane)
+    {
+        synchronized (backlogLock) {
+            DeferredRequest request = backlog.pollFirst();
+            if (request == null) {
+                releasePlane(plane);
+            } else {
+                backlogSize = backlog.size();
+            }
+            return request;
+        }
+    }
+
+    /**
+     * Returns the number of requests waiting for a plane here.
+     */
+    public int getBacklogSize()
+    {
+        return backlogSize;
+    }
+
+    /**
+     * Returns a copy of the backlog, oldest first.
+     */
+    public List<DeferredRequest> getBacklog()
+    {
+        synchronized (backlogLock) {
+            return new ArrayList<>(backlog);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.List;
+
+/**
+ * Looks up airports by ID in O(1). Airport IDs are contiguous from 1, so the airports are simply
+ * stored in an array at index (ID - 1).
+ */
+public class AirportRegistry
+{
+    private final Airport[] byId;
+
+    public AirportRegistry(List<Airport> airports)
+    {
+        byId = new Airport[airports.size()];
+        for (Airport airport : airports) {
+            int index = airport.getId() - 1;
+            if (index < 0 || index >= byId.length || byId[index] != null) {
+                throw new IllegalArgumentException("Airport IDs must be unique and contiguous from 1; got " + airport.getId());
+            }
+            byId[index] = airport;
+        }
+    }
+
+    /**
+     * Returns the airport with the given ID, or null if there is no such airport.
+     */
+    public Airport get(int id)
+    {
+        int index = id - 1;
+        if (index < 0 || index >= byId.length) {
+            return null;
+        }
+        return byId[index];
+    }
+
+    public int size()
+    {
+        return byId.length;
+    }
+}
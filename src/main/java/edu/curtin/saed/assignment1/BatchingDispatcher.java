@@ -0,0 +1,153 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes flight requests off a FlightRequestRing in batches, passing each one to a handler. The
+ * dispatcher blocks until at least one request is available, then takes as many as are queued, up
+ * to the maximum batch size. If the batch isn't full, it keeps it open for up to the linger time
+ * in case more arrive.
+ *
+ * This way, a lightly-loaded queue is dispatched almost immediately, while a heavily-loaded one is
+ * dispatched in large batches, with no fixed cap on throughput.
+ */
+public class BatchingDispatcher
+{
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    public static final long DEFAULT_LINGER_MILLIS = 5;
+
+    /**
+     * Receives each request, and is told when each batch is complete.
+     */
+    public interface Handler extends FlightRequestRing.Handler
+    {
+        void batchComplete(int size);
+    }
+
+    private final FlightRequestRing ring;
+    private final Handler handler;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile long lingerMillis = DEFAULT_LINGER_MILLIS;
+
+    private final AtomicLong batchCount = new AtomicLong(0);
+    private final AtomicLong itemCount = new AtomicLong(0);
+    private volatile int lastBatchSize = 0;
+    private volatile int largestBatchSize = 0;
+
+    public BatchingDispatcher(FlightRequestRing ring, Handler handler)
+    {
+        this.ring = ring;
+        this.handler = handler;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Maximum batch size must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setLingerMillis(long lingerMillis)
+    {
+        if (lingerMillis < 0) {
+            throw new IllegalArgumentException("Linger time cannot be negative");
+        }
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * Dispatches batches until the thread is interrupted.
+     */
+    public void run()
+    {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                awaitAndDispatch();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Blocks until at least one request is queued, then gathers and dispatches one batch.
+     */
+    public int awaitAndDispatch() throws InterruptedException
+    {
+        while (!ring.await(1, TimeUnit.SECONDS)) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        int max = maxBatchSize;
+        int size = ring.drain(handler, max);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        long remaining = deadline - System.nanoTime();
+        while (size < max && remaining > 0 && ring.await(remaining, TimeUnit.NANOSECONDS)) {
+            size += ring.drain(handler, max - size);
+            remaining = deadline - System.nanoTime();
+        }
+
+        completeBatch(size);
+        return size;
+    }
+
+    /**
+     * Dispatches whatever is queued right now (up to one batch), without blocking.
+     */
+    public int dispatchAvailable()
+    {
+        int size = ring.drain(handler, maxBatchSize);
+        if (size > 0) {
+            completeBatch(size);
+        }
+        return size;
+    }
+
+    private void completeBatch(int size)
+    {
+        handler.batchComplete(size);
+
+        batchCount.incrementAndGet();
+        itemCount.addAndGet(size);
+        lastBatchSize = size;
+        if (size > largestBatchSize) {
+            largestBatchSize = size;
+        }
+    }
+
+    public int getQueueDepth()
+    {
+        return ring.size();
+    }
+
+    public long getBatchCount()
+    {
+        return batchCount.get();
+    }
+
+    public long getItemCount()
+    {
+        return itemCount.get();
+    }
+
+    public int getLastBatchSize()
+    {
+        return lastBatchSize;
+    }
+
+    public int getLargestBatchSize()
+    {
+        return largestBatchSize;
+    }
+
+    public double getAverageBatchSize()
+    {
+        long batches = batchCount.get();
+        return (batches == 0) ? 0.0 : (double) itemCount.get() / batches;
+    }
+}
@@ -0,0 +1,40 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * A flight request that arrived when its origin airport had no plane available, waiting in that
+ * airport's backlog for one to land there.
+ */
+public class DeferredRequest
+{
+    private final Airport destination;
+    private final long requestedNanos;
+    private final long deferredNanos;
+
+    public DeferredRequest(Airport destination, long requestedNanos, long deferredNanos)
+    {
+        this.destination = destination;
+        this.requestedNanos = requestedNanos;
+        this.deferredNanos = deferredNanos;
+    }
+
+    public Airport getDestination()
+    {
+        return destination;
+    }
+
+    /**
+     * The System.nanoTime() at which the flight was originally requested.
+     */
+    public long getRequestedNanos()
+    {
+        return requestedNanos;
+    }
+
+    /**
+     * The System.nanoTime() at which the request joined the backlog.
+     */
+    public long getDeferredNanos()
+    {
+        return deferredNanos;
+    }
+}
@@ -0,0 +1,382 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The air traffic model run as a discrete-event simulation, on a VirtualTimeScheduler's clock
+ * rather than the wall clock, so that hours of traffic can be simulated in seconds. It follows the
+ * same rules as Simulation (see FlightOperations), using the same airports, backlogs, service bays
+ * and rebalancer, but there are no threads or processes: each flight request, landing and
+ * completed service is an event at a point in virtual time, and handling it schedules whatever
+ * follows.
+ *
+ * Flight requests arrive as from the comms FlightRequests program (each airport requests a flight
+ * to a random other airport every 1-5 seconds), a flight takes as many ticks as the engine would
+ * take to fly it, and a service takes 1-5 seconds, as the comms PlaneService does. A service
+ * begins as soon as its plane has a bay, unless the most services that may run at once already
+ * are, in which case it waits for one of them to finish, first come first served; this is the
+ * limit Simulation's service pool threads impose (see setServiceWorkers()). Every random choice
+ * comes from one Random, so a given seed always gives the same run, at any speed.
+ * Alternatively, requests can come from a SyntheticTraffic generator (e.g. from a Scenario),
+ * which is run in virtual time, and is just as repeatable.
+ *
+ * Separation conflicts are not checked, since flights are not stepped.
+ */
+public class DiscreteEventSimulation
+{
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(SimulationEngine.TICK_MILLIS);
+    private static final int MIN_SERVICE_MILLIS = 1000;
+    private static final int MAX_SERVICE_MILLIS = 5000;
+
+    private final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+    private final Random random;
+    private final double planeSpeed;
+    private final List<Airport> airports;
+    private final List<Plane> planes = new ArrayList<>();
+    private final EventLog eventLog = new EventLog(EventLog.DEFAULT_CAPACITY);
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final FlightOperations operations;
+    private final FlightRequestGenerator.Sink trafficSink = new FlightRequestGenerator.Sink() {
+        @Override
+        public void request(int originIndex, int destinationIndex)
+        {
+            DiscreteEventSimulation.this.request(airports.get(originIndex), airports.get(destinationIndex));
+        }
+
+        @Override
+        public void flush()
+        {
+            // Each request is handled as soon as it is generated.
+        }
+    };
+    private SyntheticTraffic traffic;  // Null for each airport's own requests.
+    private int serviceBays = ServiceBays.DEFAULT_CAPACITY;
+    private int serviceWorkers = ServiceWorkerPool.DEFAULT_CONCURRENCY;
+    private long rebalancePeriodMillis = FleetRebalancer.DEFAULT_PERIOD_MILLIS;
+    private boolean started = false;
+    private long fingerprint = 0;
+
+    public DiscreteEventSimulation(int numAirports, int planesPerAirport, long seed)
+    {
+        this(new Random(seed), numAirports, planesPerAirport);
+    }
+
+    private DiscreteEventSimulation(Random random, int numAirports, int planesPerAirport)
+    {
+        this(Simulation.createAirports(numAirports, random), planesPerAirport, random);
+    }
+
+    private DiscreteEventSimulation(List<Airport> airports, int planesPerAirport, Random random)
+    {
+        this(airports, Simulation.createFleet(airports, planesPerAirport), Simulation.PLANE_SPEED, random);
+    }
+
+    /**
+     * Creates a simulation of the given airports and fleet, whose planes must be parked at their
+     * airports, taking all its random choices from 'random'.
+     */
+    /* default */ DiscreteEventSimulation(List<Airport> airports, FleetStore fleet, double planeSpeed, Random random)
+    {
+        if (airports.size() < 2) {
+            throw new IllegalArgumentException("At least 2 airports are needed for flight requests");
+        }
+        this.random = random;
+        this.planeSpeed = planeSpeed;
+        this.airports = new ArrayList<>(airports);
+        for (int i = 0; i < fleet.size(); i++) {
+            planes.add(fleet.get(i));
+        }
+        this.operations = new FlightOperations(new VirtualTimeHost(), airports, fleet.getAirportRegistry(), eventLog, metrics);
+    }
+
+    /**
+     * Creates a simulation of the given scenario: its airports and fleet and, unless it is
+     * "classic", its synthetic traffic. Trace traffic can't be run in virtual time.
+     */
+    public static DiscreteEventSimulation fromScenario(Scenario scenario)
+    {
+        if (scenario.getTraffic() == Scenario.Traffic.TRACE) {
+            throw new IllegalArgumentException("Trace traffic can't be run in virtual time");
+        }
+        List<Airport> airports = scenario.createAirports();
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(
+                airports, scenario.createFleet(airports), scenario.getPlaneSpeed(), new Random(scenario.getSeed()));
+        if (scenario.getTraffic() != Scenario.Traffic.CLASSIC) {
+            simulation.setTraffic(scenario.createSyntheticTraffic(airports.size()));
+        }
+        return simulation;
+    }
+
+    public List<Airport> getAirports()
+    {
+        return Collections.unmodifiableList(airports);
+    }
+
+    public List<Plane> getPlanes()
+    {
+        return Collections.unmodifiableList(planes);
+    }
+
+    /**
+     * Sets how many times faster than real time to run, or 0 (the default) to run as fast as
+     * possible.
+     */
+    public void setSpeed(double speed)
+    {
+        scheduler.setSpeed(speed);
+    }
+
+    /**
+     * Sets the number of service bays at every airport. Call before the first run().
+     */
+    public void setServiceBays(int serviceBays)
+    {
+        if (serviceBays < 1) {
+            throw new IllegalArgumentException("An airport needs at least one service bay");
+        }
+        this.serviceBays = serviceBays;
+    }
+
+    /**
+     * Sets the most services that may run at once, across all airports, as Simulation's service
+     * pool threads do (see Simulation.setServiceMode()). Call before the first run().
+     */
+    public void setServiceWorkers(int serviceWorkers)
+    {
+        if (serviceWorkers < 1) {
+            throw new IllegalArgumentException("Services need at least one service worker");
+        }
+        this.serviceWorkers = serviceWorkers;
+    }
+
+    /**
+     * Takes flight requests from the given generator, in virtual time, in place of each airport's
+     * own requests. Call before the first run().
+     */
+    public void setTraffic(SyntheticTraffic traffic)
+    {
+        this.traffic = traffic;
+    }
+
+    /**
+     * Sets how often (in virtual time) idle planes are repositioned towards airports with a
+     * backlog, or 0 not to reposition them at all. Call before the first run().
+     */
+    public void setRebalancePeriodMillis(long rebalancePeriodMillis)
+    {
+        this.rebalancePeriodMillis = rebalancePeriodMillis;
+    }
+
+    /**
+     * Runs the simulation up to the given virtual time. Can be called repeatedly, with later
+     * times, to run it in stages.
+     */
+    public void run(long untilNanos) throws InterruptedException
+    {
+        if (!started) {
+            started = true;
+            for (Airport airport : airports) {
+                airport.getServiceBays().setCapacity(serviceBays);
+                airport.getServiceBays().resetStats(0);
+                if (traffic == null) {
+                    scheduler.schedule(0, () -> requestArrived(airport));
+                }
+            }
+            if (traffic != null) {
+                scheduler.schedule(traffic.getNextDueNanos(), this::trafficDue);
+            }
+            if (rebalancePeriodMillis > 0) {
+                scheduler.scheduleAfter(TimeUnit.MILLISECONDS.toNanos(rebalancePeriodMillis), this::rebalance);
+            }
+        }
+        scheduler.run(untilNanos);
+    }
+
+    /**
+     * Returns the current virtual time, in nanoseconds since the start.
+     */
+    public long now()
+    {
+        return scheduler.now();
+    }
+
+    private void rebalance()
+    {
+        operations.getRebalancer().rebalance();
+        scheduler.scheduleAfter(TimeUnit.MILLISECONDS.toNanos(rebalancePeriodMillis), this::rebalance);
+    }
+
+    /**
+     * An airport requests a flight to a random other airport, then waits 1-5 seconds before its
+     * next request.
+     */
+    private void requestArrived(Airport origin)
+    {
+        int destinationIndex = random.nextInt(airports.size() - 1);
+        if (destinationIndex >= origin.getId() - 1) {
+            destinationIndex++;  // Skip over the origin.
+        }
+        int waitMillis = FlightRequestGenerator.MIN_WAIT_MILLIS
+                + random.nextInt(FlightRequestGenerator.MAX_WAIT_MILLIS - FlightRequestGenerator.MIN_WAIT_MILLIS);
+        scheduler.scheduleAfter(TimeUnit.MILLISECONDS.toNanos(waitMillis), () -> requestArrived(origin));
+        request(origin, airports.get(destinationIndex));
+    }
+
+    /**
+     * Handles every request the synthetic traffic has due now, and waits for the next.
+     */
+    private void trafficDue()
+    {
+        traffic.generate(scheduler.now(), trafficSink);
+        scheduler.schedule(traffic.getNextDueNanos(), this::trafficDue);
+    }
+
+    private void request(Airport origin, Airport destination)
+    {
+        operations.request(origin.getId(), destination.getId(), scheduler.now());
+    }
+
+    /**
+     * Returns a hash of every landing and completed service so far (what, where, and when), which
+     * is the same for every run with the same seed and settings.
+     */
+    public long getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the number of events handled so far.
+     */
+    public long getEventsProcessed()
+    {
+        return scheduler.getProcessedCount();
+    }
+
+    public EventLog getEventLog()
+    {
+        return eventLog;
+    }
+
+    /**
+     * Returns the simulation's counters, gauges and latency histograms, in virtual time.
+     */
+    public MetricsRegistry getMetrics()
+    {
+        return metrics;
+    }
+
+    public String getStatusText()
+    {
+        return operations.getStatusText();
+    }
+
+    /* default */ int getBacklogSize()
+    {
+        return operations.getBacklogSize();
+    }
+
+    /**
+     * Flies planes and runs services as events in virtual time, and folds every landing and
+     * completed service into the fingerprint.
+     */
+    private final class VirtualTimeHost implements FlightOperations.Host
+    {
+        private final Queue<ServiceRequest> waitingForWorker = new ArrayDeque<>();
+        private int running = 0;
+
+        @Override
+        public long now()
+        {
+            return scheduler.now();
+        }
+
+        /**
+         * Schedules the plane's landing, as many ticks from now as the engine would take to fly it
+         * there.
+         */
+        @Override
+        public void fly(Plane plane, Airport origin, Airport destination, long requestedNanos, boolean emptyLeg)
+        {
+            plane.setInFlight(true);
+            double deltaX = destination.getX() - origin.getX();
+            double deltaY = destination.getY() - origin.getY();
+            long steps = Math.max(1, (long) Math.ceil(Math.sqrt(deltaX * deltaX + deltaY * deltaY) / planeSpeed));
+            long departed = scheduler.now();
+            scheduler.scheduleAfter(steps * TICK_NANOS, () -> {
+                plane.setPosition(destination.getX(), destination.getY());
+                operations.landed(plane, destination, requestedNanos, departed, emptyLeg);
+            });
+        }
+
+        @Override
+        public boolean handOff(Plane plane, Airport origin, Airport destination, long requestedNanos)
+        {
+            return false;  // Every airport is ours.
+        }
+
+        /**
+         * Starts the service straight away if fewer than serviceWorkers are running (as a free
+         * pool thread would), and otherwise queues it until one finishes.
+         */
+        @Override
+        public void startService(ServiceRequest request)
+        {
+            if (running < serviceWorkers) {
+                begin(request);
+            } else {
+                waitingForWorker.add(request);
+            }
+        }
+
+        /**
+         * Starts the service, and schedules its completion, which starts the next waiting service
+         * (if any) in its place.
+         */
+        private void begin(ServiceRequest request)
+        {
+            running++;
+            operations.serviceStarted(request);
+            int durationMillis = MIN_SERVICE_MILLIS + random.nextInt(MAX_SERVICE_MILLIS - MIN_SERVICE_MILLIS);
+            scheduler.scheduleAfter(TimeUnit.MILLISECONDS.toNanos(durationMillis), () -> {
+                // As a pool thread does, finish this service (admitting any plane waiting for
+                // its bay to the back of the queue) before taking the next one.
+                operations.serviceCompleted(request, null);
+                running--;
+                ServiceRequest next = waitingForWorker.poll();
+                if (next != null) {
+                    begin(next);
+                }
+            });
+        }
+
+        @Override
+        public void record(EventJournal.RecordType type, int a, int b, int c, double x, double y)
+        {
+            EventType event;
+            if (type == EventJournal.RecordType.PLANE_LANDED) {
+                event = EventType.PLANE_LANDED;
+            } else if (type == EventJournal.RecordType.SERVICE_COMPLETED) {
+                event = EventType.SERVICE_COMPLETED;
+            } else {
+                return;
+            }
+            fingerprint = fingerprint * 31 + scheduler.now();
+            fingerprint = fingerprint * 31 + event.ordinal();
+            fingerprint = fingerprint * 31 + a;  // Plane ID
+            fingerprint = fingerprint * 31 + b;  // Airport ID
+        }
+
+        @Override
+        public void statisticsChanged()
+        {
+            // Nothing is displayed while running.
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only binary record of everything that happens in a simulation run, for replaying and
+ * analysing afterwards (see JournalReplayer).
+ *
+ * Every record is RECORD_SIZE bytes: a timestamp (nanoseconds since the journal was opened), a
+ * record type, three integers and an x/y position, all little-endian. Their meaning depends on the
+ * type; see RecordType. Records are written straight into a memory-mapped segment file, so
+ * recording an event costs a few stores rather than formatting and writing a string, and whatever
+ * was recorded survives the process crashing. When a segment fills up, the journal moves on to a
+ * new one ("journal-000000.seg", "journal-000001.seg", ...).
+ *
+ * Segment files are created at their full size. The unused tail of the last one is all zeros,
+ * which reads as a record of type 0, marking the end of the journal.
+ *
+ * Any thread may record events. If writing a segment fails, the journal reports the error once and
+ * ignores all further events, rather than disrupting the simulation.
+ */
+public class EventJournal
+{
+    public static final int RECORD_SIZE = 32;
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    /* default */ static final String SEGMENT_PREFIX = "journal-";
+    /* default */ static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * The kinds of journal record. A record's type is stored as its code, so existing codes must
+     * never change.
+     */
+    public enum RecordType
+    {
+        /** a = airport ID; x, y = position. Written for each airport when recording starts. */
+        AIRPORT(1),
+        /** a = plane ID, b = airport ID; x, y = position. Written for each plane when recording starts. */
+        PLANE(2),
+        /** a = origin airport ID, b = destination airport ID. */
+        FLIGHT_REQUESTED(3),
+        /** a = origin airport ID, b = destination airport ID. */
+        INVALID_REQUEST(4),
+        /** a = plane ID, b = origin airport ID, c = destination airport ID. */
+        PLANE_ALLOCATED(5),
+        /** a = plane ID; x, y = new position. */
+        PLANE_STEPPED(6),
+        /** a = plane ID, b = airport ID; x, y = position. */
+        PLANE_LANDED(7),
+        /** a = plane ID, b = airport ID. */
+        SERVICE_STARTED(8),
+        /** a = plane ID, b = airport ID. */
+        SERVICE_COMPLETED(9),
+        /** a = plane ID, b = airport ID. */
+        SERVICE_FAILED(10),
+        /** a = tick number (truncated to an int). Marks the end of a simulation tick. */
+        TICK(11),
+        /** a, b = IDs of two planes closer than the separation distance; x, y = first plane's position. */
+        CONFLICT(12),
+        /** a = plane ID, b = origin airport ID, c = destination airport ID. An empty repositioning leg. */
+        FERRY_DEPARTED(13),
+        /**
+         * a = origin airport ID, b = destination airport ID. No plane was free, so the request joined
+         * the origin's backlog. Also written for each request already waiting when recording starts.
+         */
+        REQUEST_DEFERRED(14),
+        /** a = origin airport ID, b = destination airport ID. The origin's backlog was full. */
+        REQUEST_DROPPED(15),
+        /**
+         * a = plane ID, b = origin airport ID, c = destination airport ID. A plane released at the
+         * origin took the oldest request in its backlog (and is then allocated to it).
+         */
+        BACKLOG_MATCHED(16);
+
+        private static final RecordType[] BY_CODE = new RecordType[17];
+
+        static {
+            for (RecordType type : values()) {
+                BY_CODE[type.code] = type;
+            }
+        }
+
+        private final int code;
+
+        RecordType(int code)
+        {
+            this.code = code;
+        }
+
+        public int getCode()
+        {
+            return code;
+        }
+
+        /**
+         * Returns the type with the given code, or null if there isn't one (including code 0, the
+         * end-of-journal marker).
+         */
+        public static RecordType fromCode(int code)
+        {
+            return (code > 0 && code < BY_CODE.length) ? BY_CODE[code] : null;
+        }
+    }
+
+    private final Object lock = new Object();
+    private final Path directory;
+    private final int segmentBytes;
+    private final long startNanos;
+    private MappedByteBuffer segment;
+    private int segmentCount = 0;
+    private long recordCount = 0;
+    private boolean closed = false;
+
+    public EventJournal(Path directory) throws IOException
+    {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Creates a journal in the given directory (which is created if necessary), with segment
+     * files of the given size (rounded down to a whole number of records).
+     */
+    public EventJournal(Path directory, int segmentBytes) throws IOException
+    {
+        if (segmentBytes < RECORD_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + RECORD_SIZE + " bytes");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes - (segmentBytes % RECORD_SIZE);
+        Files.createDirectories(directory);
+        this.segment = openSegment();
+        this.startNanos = System.nanoTime();
+    }
+
+    public void record(RecordType type, int a, int b, int c)
+    {
+        record(type, a, b, c, 0.0, 0.0);
+    }
+
+    public void record(RecordType type, int a, int b, int c, double x, double y)
+    {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            if (!segment.hasRemaining()) {
+                try {
+                    segment = openSegment();
+                } catch (IOException e) {
+                    System.err.println("Event journal disabled: " + e.getMessage());
+                    closed = true;
+                    return;
+                }
+            }
+            segment.putLong(System.nanoTime() - startNanos);
+            segment.putInt(type.getCode());
+            segment.putInt(a);
+            segment.putInt(b);
+            segment.putInt(c);
+            segment.putFloat((float) x);
+            segment.putFloat((float) y);
+            recordCount++;
+        }
+    }
+
+    /**
+     * Flushes the current segment to disk and stops recording. Later events are ignored.
+     */
+    public void close()
+    {
+        synchronized (lock) {
+            if (!closed) {
+                closed = true;
+                segment.force();
+            }
+        }
+    }
+
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    public long getRecordCount()
+    {
+        synchronized (lock) {
+            return recordCount;
+        }
+    }
+
+    public int getSegmentCount()
+    {
+        synchronized (lock) {
+            return segmentCount;
+        }
+    }
+
+    /* default */ static String segmentName(int index)
+    {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Creates and maps the next segment file. The mapping stays valid after the channel is closed.
+     */
+    private MappedByteBuffer openSegment() throws IOException
+    {
+        Path file = directory.resolve(segmentName(segmentCount));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (segment != null) {
+            segment.force();
+        }
+        segmentCount++;
+        return buffer;
+    }
+}
@@ -0,0 +1,154 @@
+package edu.curtin.saed.assignment1;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-capacity ring buffer of simulation events. Any number of threads may log events without
+ * locking, and one thread (normally the GUI, once per frame) reads them back in batches.
+ *
+ * The log never blocks or grows. If the reader falls more than a full ring behind, the oldest
+ * unread events are overwritten. In the rare case that a writer laps another writer still filling
+ * the same slot, its event is dropped instead. Both are counted, so that we can tell when log
+ * volume is being shed.
+ *
+ * Each slot has a sequence number: 2p + 1 while event p is being written, and 2p + 2 once it has
+ * been published. The reader checks it before and after copying a slot, as in a seqlock. The
+ * copy itself is made of plain reads, so an acquire fence keeps them from being reordered after
+ * the second check. (On the writer's side, the compare-and-set that claims a slot already keeps
+ * the writes that follow it from moving ahead of it.)
+ */
+public class EventLog
+{
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    /**
+     * Receives events read from the log.
+     */
+    public interface Reader
+    {
+        void event(EventType type, int a, int b, int c, String text);
+    }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final EventType[] types;
+    private final int[] as, bs, cs;
+    private final String[] texts;
+
+    private final AtomicLong claimed = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong overwritten = new AtomicLong(0);
+
+    private long cursor = 0;
+    private boolean stalled = false;
+
+    public EventLog(int capacity)
+    {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, and at least 2");
+        }
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        types = new EventType[capacity];
+        as = new int[capacity];
+        bs = new int[capacity];
+        cs = new int[capacity];
+        texts = new String[capacity];
+    }
+
+    public void log(EventType type, int a, int b, int c)
+    {
+        log(type, a, b, c, null);
+    }
+
+    public void log(EventType type, String text)
+    {
+        log(type, 0, 0, 0, text);
+    }
+
+    public void log(EventType type, int a, int b, int c, String text)
+    {
+        long position = claimed.getAndIncrement();
+        int slot = (int) position & mask;
+        long current = sequences.get(slot);
+
+        // Give up if another writer is still filling this slot, or (if we were very slow) a newer
+        // event has already taken it.
+        if ((current & 1) != 0 || current > 2 * position
+                || !sequences.compareAndSet(slot, current, 2 * position + 1)) {
+            dropped.incrementAndGet();
+            return;
+        }
+
+        types[slot] = type;
+        as[slot] = a;
+        bs[slot] = b;
+        cs[slot] = c;
+        texts[slot] = text;
+        sequences.set(slot, 2 * position + 2);
+    }
+
+    /**
+     * Passes up to 'max' unread events, oldest first, to the reader. Reader thread only.
+     */
+    public int drain(Reader reader, int max)
+    {
+        long latest = claimed.get();
+        if (latest - cursor > mask + 1) {
+            overwritten.addAndGet(latest - (mask + 1) - cursor);
+            cursor = latest - (mask + 1);
+        }
+
+        int count = 0;
+        while (count < max && cursor < latest) {
+            int slot = (int) cursor & mask;
+            long expected = 2 * cursor + 2;
+            long before = sequences.get(slot);
+
+            if (before < expected) {
+                // Not published yet. Give the writer until the next drain to finish; if it still
+                // hasn't, its event was dropped (or the writer is stuck), so move on.
+                if (!stalled) {
+                    stalled = true;
+                    break;
+                }
+                dropped.incrementAndGet();
+            } else if (before > expected) {
+                overwritten.incrementAndGet();
+            } else {
+                EventType type = types[slot];
+                int a = as[slot];
+                int b = bs[slot];
+                int c = cs[slot];
+                String text = texts[slot];
+                VarHandle.acquireFence();  // Finish reading the slot before re-checking it.
+                if (sequences.get(slot) == expected) {
+                    reader.event(type, a, b, c, text);
+                    count++;
+                } else {
+                    overwritten.incrementAndGet();
+                }
+            }
+            stalled = false;
+            cursor++;
+        }
+        return count;
+    }
+
+    public long getLoggedCount()
+    {
+        return claimed.get();
+    }
+
+    public long getDroppedCount()
+    {
+        return dropped.get();
+    }
+
+    public long getOverwrittenCount()
+    {
+        return overwritten.get();
+    }
+}
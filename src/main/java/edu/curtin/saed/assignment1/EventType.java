@@ -0,0 +1,36 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * The kinds of event recorded in the EventLog. Each event carries up to three integers (whose
+ * meaning depends on the type) and, for some types, a piece of text. Events are only formatted
+ * into readable messages when they are actually displayed.
+ */
+public enum EventType
+{
+    FLIGHT_REQUESTED("Flight request from Airport %1$d to Airport %2$d"),
+    INVALID_REQUEST("Invalid flight request from Airport %1$d to Airport %2$d"),
+    REQUEST_DEFERRED("No plane available at Airport %1$d; request to Airport %2$d is waiting"),
+    REQUEST_DROPPED("Backlog full at Airport %1$d; dropped request to Airport %2$d"),
+    BATCH_DISPATCHED("Executed a batch of %1$d flight requests."),
+    PLANE_DEPARTED("Plane %1$d is flying from %2$d to %3$d"),
+    FERRY_DEPARTED("Plane %1$d is repositioning (empty) from %2$d to %3$d"),
+    PLANE_LANDED("Plane %1$d landed at Airport %2$d."),
+    SERVICE_STARTED("Servicing plane %1$d at Airport %2$d"),
+    SERVICE_COMPLETED("Service Completed: %4$s"),
+    SEPARATION_CONFLICT("Separation conflict between planes %1$d and %2$d"),
+    SERVICE_FAILED("Error servicing plane %1$d at Airport %2$d: %4$s"),
+    REPLAY_FINISHED("Replay finished after %1$d records."),
+    ERROR("Error: %4$s");
+
+    private final String template;
+
+    EventType(String template)
+    {
+        this.template = template;
+    }
+
+    public String format(int a, int b, int c, String text)
+    {
+        return String.format(template, a, b, c, text);
+    }
+}
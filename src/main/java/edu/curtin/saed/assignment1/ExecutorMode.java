@@ -0,0 +1,121 @@
+package edu.curtin.saed.assignment1;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * What kind of threads run the simulation's blocking tasks: reading flight request processes,
+ * waiting for plane services, and taking from the service request queue. (Stepping planes is
+ * CPU-bound, and always stays on the engine's own small, bounded set of platform threads.)
+ *
+ * Virtual threads need Java 21. The code is compiled for an earlier release, so they are reached
+ * through reflection; on an older JVM, VIRTUAL_THREADS falls back to platform threads (see
+ * resolve()).
+ */
+public enum ExecutorMode
+{
+    /** A cached pool of platform threads, growing by one thread for each concurrent blocking task. */
+    PLATFORM_THREADS,
+
+    /** A new virtual thread for every task. Blocked virtual threads don't tie up an OS thread. */
+    VIRTUAL_THREADS;
+
+    /**
+     * Returns this mode if the running JVM supports it, and otherwise PLATFORM_THREADS.
+     */
+    public ExecutorMode resolve()
+    {
+        return (this == VIRTUAL_THREADS && !VirtualThreads.isAvailable()) ? PLATFORM_THREADS : this;
+    }
+
+    public static boolean isVirtualThreadsAvailable()
+    {
+        return VirtualThreads.isAvailable();
+    }
+
+    /**
+     * Creates an executor with a thread per concurrently-running task.
+     */
+    public ExecutorService newExecutor()
+    {
+        switch (resolve()) {
+            case PLATFORM_THREADS:
+                return Executors.newCachedThreadPool();
+            case VIRTUAL_THREADS:
+                return VirtualThreads.newExecutor();
+            default:
+                throw new AssertionError("Unknown executor mode: " + this);
+        }
+    }
+
+    /**
+     * Creates a named (daemon) thread to run the given task, without starting it.
+     */
+    public Thread newThread(String name, Runnable task)
+    {
+        switch (resolve()) {
+            case PLATFORM_THREADS:
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            case VIRTUAL_THREADS:
+                return VirtualThreads.newThread(name, task);
+            default:
+                throw new AssertionError("Unknown executor mode: " + this);
+        }
+    }
+
+    /**
+     * The Java 21 virtual thread API, looked up once.
+     */
+    private static final class VirtualThreads
+    {
+        private static final String BUILDER = "java.lang.Thread$Builder";
+
+        private static final Method NEW_EXECUTOR = find("java.util.concurrent.Executors", "newVirtualThreadPerTaskExecutor");
+        private static final Method OF_VIRTUAL = find("java.lang.Thread", "ofVirtual");
+        private static final Method NAME = find(BUILDER, "name", String.class);
+        private static final Method UNSTARTED = find(BUILDER, "unstarted", Runnable.class);
+
+        /**
+         * Returns the given public method, or null if there is no such method (or class).
+         */
+        private static Method find(String className, String methodName, Class<?>... parameterTypes)
+        {
+            try {
+                return Class.forName(className).getMethod(methodName, parameterTypes);
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+
+        /* default */ static boolean isAvailable()
+        {
+            return NEW_EXECUTOR != null && OF_VIRTUAL != null && NAME != null && UNSTARTED != null;
+        }
+
+        /* default */ static ExecutorService newExecutor()
+        {
+            try {
+                return (ExecutorService) NEW_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create virtual thread executor", e);
+            }
+        }
+
+        /* default */ static Thread newThread(String name, Runnable task)
+        {
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                return (Thread) UNSTARTED.invoke(builder, task);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create virtual thread", e);
+            }
+        }
+
+        private VirtualThreads()
+        {
+        }
+    }
+}
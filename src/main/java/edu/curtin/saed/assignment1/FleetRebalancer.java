@@ -0,0 +1,124 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Repositions idle planes towards airports with a backlog of flight requests. Each round, every
+ * airport whose backlog exceeds the planes already on their way to it is sent planes (as empty
+ * legs) from the nearest airports that have planes to spare, most-backlogged airport first.
+ *
+ * An airport has planes to spare if it has no backlog of its own and more than DONOR_RESERVE
+ * planes available, so that repositioning doesn't simply move the shortage somewhere else. Rounds
+ * are limited to MAX_FERRIES_PER_ROUND planes, to keep each one short even with many airports.
+ */
+public class FleetRebalancer
+{
+    public static final long DEFAULT_PERIOD_MILLIS = 1000;
+    public static final int MAX_FERRIES_PER_ROUND = 64;
+    public static final int DONOR_RESERVE = 1;
+
+    /**
+     * Flies a plane, already taken from the 'from' airport's pool, empty to the 'to' airport.
+     */
+    public interface Handler
+    {
+        void ferry(Plane plane, Airport from, Airport to);
+    }
+
+    private final List<Airport> airports;
+    private final AtomicIntegerArray inbound;  // Empty legs on their way, by airport ID - 1.
+    private final Handler handler;
+
+    /**
+     * Creates a rebalancer for the given airports, whose IDs must be contiguous from 1.
+     */
+    public FleetRebalancer(List<Airport> airports, Handler handler)
+    {
+        this.airports = new ArrayList<>(airports);
+        this.inbound = new AtomicIntegerArray(airports.size());
+        this.handler = handler;
+    }
+
+    /**
+     * Sends planes towards backlogged airports, and returns how many were sent. Only one thread
+     * should rebalance at a time.
+     */
+    public int rebalance()
+    {
+        List<Airport> needy = new ArrayList<>();
+        for (Airport airport : airports) {
+            if (getDeficit(airport) > 0) {
+                needy.add(airport);
+            }
+        }
+        needy.sort(Comparator.comparingInt(this::getDeficit).reversed());
+
+        int sent = 0;
+        int attempts = 0;
+        for (Airport target : needy) {
+            int deficit = getDeficit(target);
+            while (deficit > 0 && attempts < MAX_FERRIES_PER_ROUND) {
+                attempts++;
+                Airport donor = findNearestDonor(target);
+                if (donor == null) {
+                    return sent;  // Nobody has any planes to spare.
+                }
+                Plane plane = donor.acquirePlane();
+                if (plane != null) {  // Otherwise, the donor's last spare plane was just taken.
+                    inbound.incrementAndGet(target.getId() - 1);
+                    handler.ferry(plane, donor, target);
+                    sent++;
+                    deficit--;
+                }
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Records that an empty leg has arrived at the given airport.
+     */
+    public void ferryLanded(Airport airport)
+    {
+        // Never below zero, in case the leg was launched before this rebalancer existed (e.g. it
+        // was restored from a snapshot).
+        inbound.getAndUpdate(airport.getId() - 1, count -> Math.max(0, count - 1));
+    }
+
+    /**
+     * Returns the number of empty legs on their way to the given airport.
+     */
+    public int getInbound(Airport airport)
+    {
+        return inbound.get(airport.getId() - 1);
+    }
+
+    /**
+     * Returns how many more planes the given airport needs to clear its backlog.
+     */
+    private int getDeficit(Airport airport)
+    {
+        return airport.getBacklogSize() - airport.getAvailableCount() - getInbound(airport);
+    }
+
+    private Airport findNearestDonor(Airport target)
+    {
+        Airport nearest = null;
+        long nearestDistance = Long.MAX_VALUE;
+        for (Airport airport : airports) {
+            if (!airport.equals(target) && airport.getBacklogSize() == 0 && airport.getAvailableCount() > DONOR_RESERVE) {
+                long deltaX = airport.getX() - target.getX();
+                long deltaY = airport.getY() - target.getY();
+                long distance = deltaX * deltaX + deltaY * deltaY;
+                if (distance < nearestDistance) {
+                    nearest = airport;
+                    nearestDistance = distance;
+                }
+            }
+        }
+        return nearest;
+    }
+}
@@ -0,0 +1,251 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.Arrays;
+
+/**
+ * The state of every plane, held as parallel primitive arrays indexed by plane index (plane ID - 1)
+ * rather than as one object per plane. Stepping every flight is then a sweep along a few dense
+ * arrays, instead of a walk across the heap.
+ *
+ * For each plane we keep its position, per-step velocity and steps remaining on its current leg,
+ * its status, the airport it is at (or departed from), its destination, and when the request for
+ * its current leg was made and when it departed, and whether that leg is an empty repositioning
+ * flight rather than one carrying a request. Plane objects are just handles (an index into this
+ * store), created once per plane, so code outside the engine can still work in terms of planes.
+ * The arrays grow while planes are being added, but are sized up front when the fleet size is
+ * known.
+ *
+ * Planes are added before the simulation starts. After that, a plane's leg is written by whichever
+ * thread launches it (while it is parked, so nothing else is touching it), and then only by the
+ * engine's tick thread until it lands.
+ */
+public class FleetStore
+{
+    public static final byte PARKED = 0;
+    public static final byte IN_FLIGHT = 1;
+    public static final byte SERVICING = 2;  // Landed, and waiting for or undergoing service.
+    public static final byte REMOTE = 3;     // Handled by another shard (see ShardWorker).
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final AirportRegistry airports;
+    private int size = 0;
+    private double[] x;
+    private double[] y;
+    private double[] stepX;
+    private double[] stepY;
+    private int[] remainingSteps;
+    private byte[] status;
+    private int[] airportIds;
+    private int[] destinationIds;
+    private long[] requestedNanos;
+    private long[] departedNanos;
+    private boolean[] emptyLegs;
+    private Plane[] handles;
+
+    public FleetStore(AirportRegistry airports, int capacity)
+    {
+        int initialCapacity = Math.max(capacity, MIN_CAPACITY);
+        this.airports = airports;
+        x = new double[initialCapacity];
+        y = new double[initialCapacity];
+        stepX = new double[initialCapacity];
+        stepY = new double[initialCapacity];
+        remainingSteps = new int[initialCapacity];
+        status = new byte[initialCapacity];
+        airportIds = new int[initialCapacity];
+        destinationIds = new int[initialCapacity];
+        requestedNanos = new long[initialCapacity];
+        departedNanos = new long[initialCapacity];
+        emptyLegs = new boolean[initialCapacity];
+        handles = new Plane[initialCapacity];
+    }
+
+    private void grow()
+    {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        stepX = Arrays.copyOf(stepX, capacity);
+        stepY = Arrays.copyOf(stepY, capacity);
+        remainingSteps = Arrays.copyOf(remainingSteps, capacity);
+        status = Arrays.copyOf(status, capacity);
+        airportIds = Arrays.copyOf(airportIds, capacity);
+        destinationIds = Arrays.copyOf(destinationIds, capacity);
+        requestedNanos = Arrays.copyOf(requestedNanos, capacity);
+        departedNanos = Arrays.copyOf(departedNanos, capacity);
+        emptyLegs = Arrays.copyOf(emptyLegs, capacity);
+        handles = Arrays.copyOf(handles, capacity);
+    }
+
+    /**
+     * Adds a parked plane at the given airport and position, with the next plane ID, and returns
+     * its handle. Not thread-safe; only for setting up the fleet.
+     */
+    public Plane add(Airport airport, double planeX, double planeY)
+    {
+        if (size == x.length) {
+            grow();
+        }
+        int index = size;
+        x[index] = planeX;
+        y[index] = planeY;
+        status[index] = PARKED;
+        airportIds[index] = airport.getId();
+        handles[index] = new Plane(this, index);
+        size++;
+        return handles[index];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public Plane get(int index)
+    {
+        return handles[index];
+    }
+
+    public AirportRegistry getAirportRegistry()
+    {
+        return airports;
+    }
+
+    /**
+     * Starts a new leg from the plane's current position to the given destination, moving at most
+     * 'speed' per step. The last step lands the plane exactly on the destination.
+     */
+    public void beginLeg(int index, Airport destination, double speed, long requested)
+    {
+        double deltaX = destination.getX() - x[index];
+        double deltaY = destination.getY() - y[index];
+        double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+        // Round up, so that no step is longer than the plane's speed.
+        int steps = (int) Math.ceil(distance / speed);
+        if (steps > 0) {
+            resumeLeg(index, destination, deltaX / steps, deltaY / steps, steps, requested);
+        } else {
+            resumeLeg(index, destination, 0.0, 0.0, 0, requested);
+        }
+        departedNanos[index] = System.nanoTime();
+    }
+
+    /**
+     * Sets a leg already part-way through (e.g. when restoring a snapshot). Its departure time
+     * isn't known, so it is taken to be the time of the request.
+     */
+    public void resumeLeg(int index, Airport destination, double legStepX, double legStepY, int steps, long requested)
+    {
+        destinationIds[index] = destination.getId();
+        stepX[index] = legStepX;
+        stepY[index] = legStepY;
+        remainingSteps[index] = steps;
+        requestedNanos[index] = requested;
+        departedNanos[index] = requested;
+        status[index] = IN_FLIGHT;
+    }
+
+    /**
+     * Moves a plane one step along its leg. Returns true once it has arrived at its destination.
+     * Tick thread only.
+     */
+    public boolean step(int index)
+    {
+        int remaining = remainingSteps[index] - 1;
+        remainingSteps[index] = remaining;
+        if (remaining <= 0) {
+            Airport destination = airports.get(destinationIds[index]);
+            x[index] = destination.getX();
+            y[index] = destination.getY();
+            return true;
+        }
+        x[index] += stepX[index];
+        y[index] += stepY[index];
+        return false;
+    }
+
+    public double getX(int index)
+    {
+        return x[index];
+    }
+
+    public double getY(int index)
+    {
+        return y[index];
+    }
+
+    public void setPosition(int index, double newX, double newY)
+    {
+        x[index] = newX;
+        y[index] = newY;
+    }
+
+    public byte getStatus(int index)
+    {
+        return status[index];
+    }
+
+    public void setStatus(int index, byte newStatus)
+    {
+        status[index] = newStatus;
+    }
+
+    public Airport getAirport(int index)
+    {
+        return airports.get(airportIds[index]);
+    }
+
+    public void setAirport(int index, Airport airport)
+    {
+        airportIds[index] = airport.getId();
+    }
+
+    public Airport getDestination(int index)
+    {
+        return airports.get(destinationIds[index]);
+    }
+
+    public double getStepX(int index)
+    {
+        return stepX[index];
+    }
+
+    public double getStepY(int index)
+    {
+        return stepY[index];
+    }
+
+    public int getRemainingSteps(int index)
+    {
+        return remainingSteps[index];
+    }
+
+    public long getRequestedNanos(int index)
+    {
+        return requestedNanos[index];
+    }
+
+    public long getDepartedNanos(int index)
+    {
+        return departedNanos[index];
+    }
+
+    /**
+     * Returns whether the plane's current (or most recent) leg is an empty repositioning flight.
+     */
+    public boolean isEmptyLeg(int index)
+    {
+        return emptyLegs[index];
+    }
+
+    /**
+     * Marks the plane's next leg as an empty repositioning flight, or not. Call before beginLeg()
+     * or resumeLeg().
+     */
+    public void setEmptyLeg(int index, boolean emptyLeg)
+    {
+        emptyLegs[index] = emptyLeg;
+    }
+}
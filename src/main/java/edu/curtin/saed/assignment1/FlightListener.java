@@ -0,0 +1,27 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * Receives callbacks from the SimulationEngine. All methods are called on the engine's tick
+ * thread, so implementations must hand off any GUI work rather than doing it directly.
+ */
+public interface FlightListener
+{
+    /**
+     * Called after a plane has moved one step, unless that step landed it. Only called if the
+     * engine has been asked to report moves.
+     */
+    void flightMoved(Plane plane);
+
+    /**
+     * Called once a plane has arrived at its destination (which it has not yet been assigned to).
+     */
+    void flightLanded(Plane plane);
+
+    /**
+     * Called for each pair of flying planes found closer than the separation distance at the end
+     * of a tick (only if the engine has a SpatialIndex).
+     */
+    void conflictDetected(Plane first, Plane second);
+
+    void tickCompleted(long tick);
+}
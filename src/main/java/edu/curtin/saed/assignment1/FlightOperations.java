@@ -0,0 +1,428 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rules of the air traffic model, shared by Simulation and DiscreteEventSimulation: what
+ * happens when a flight is requested, a plane departs or lands, and a plane is serviced, and the
+ * metrics kept about it all.
+ *
+ * The two differ only in how time passes, so each supplies a Host for the clock and for the
+ * things that take time. A flight, once started with Host.fly(), ends with a call to landed(); a
+ * service, once handed over with Host.startService(), calls serviceStarted() and then
+ * serviceCompleted() (or serviceFailed()).
+ */
+public class FlightOperations
+{
+    /**
+     * What a simulation provides to run the model in its own time.
+     */
+    public interface Host
+    {
+        /**
+         * Returns the current time, in nanoseconds.
+         */
+        long now();
+
+        /**
+         * Flies a plane from 'origin' to 'destination', calling landed() once it gets there.
+         */
+        void fly(Plane plane, Airport origin, Airport destination, long requestedNanos, boolean emptyLeg);
+
+        /**
+         * If the destination belongs to another shard, hands the departing plane over to it and
+         * returns true; otherwise returns false, and the plane is flown here.
+         */
+        boolean handOff(Plane plane, Airport origin, Airport destination, long requestedNanos);
+
+        /**
+         * Starts servicing a plane that has been given a service bay.
+         */
+        void startService(ServiceRequest request);
+
+        /**
+         * Records an event (see EventJournal.RecordType), e.g. in a journal.
+         */
+        void record(EventJournal.RecordType type, int a, int b, int c, double x, double y);
+
+        /**
+         * Called whenever the counters shown to the user have changed.
+         */
+        void statisticsChanged();
+    }
+
+    private final Host host;
+    private final EventLog eventLog;
+    private final List<Airport> airports;
+    private final AirportRegistry airportRegistry;
+    private final FleetRebalancer rebalancer;
+
+    private final MetricsRegistry.Counter requestsDispatched;
+    private final MetricsRegistry.Counter invalidRequests;
+    private final MetricsRegistry.Counter requestsServed;
+    private final MetricsRegistry.Counter requestsDeferred;
+    private final MetricsRegistry.Counter requestsDropped;
+    private final MetricsRegistry.Counter ferryFlights;
+    private final MetricsRegistry.Counter inFlight;
+    private final MetricsRegistry.Counter completedTrips;
+    private final MetricsRegistry.Counter undergoingService;
+    private final MetricsRegistry.Counter servicesCompleted;
+    private final LatencyHistogram allocationLatency;    // Requested -> plane allocated
+    private final LatencyHistogram backlogWait;          // Deferred -> plane allocated
+    private final LatencyHistogram flightLatency;        // Departed -> landed
+    private final LatencyHistogram tripLatency;          // Requested -> landed
+    private final LatencyHistogram serviceWait;          // Landed -> service started
+    private final LatencyHistogram serviceLatency;       // Landed -> service completed
+    private final LatencyHistogram endToEndLatency;      // Requested -> serviced
+
+    /**
+     * Creates the model for the given airports (with IDs as known to 'airportRegistry'), and
+     * registers its metrics with 'metrics'.
+     */
+    public FlightOperations(Host host, List<Airport> airports, AirportRegistry airportRegistry,
+                            EventLog eventLog, MetricsRegistry metrics)
+    {
+        this.host = host;
+        this.eventLog = eventLog;
+        this.airports = new ArrayList<>(airports);
+        this.airportRegistry = airportRegistry;
+        this.rebalancer = new FleetRebalancer(airports, (plane, from, to) -> ferryPlane(plane, from, to));
+
+        requestsDispatched = metrics.counter("requests-dispatched");
+        invalidRequests = metrics.counter("invalid-requests");
+        requestsServed = metrics.counter("requests-served");
+        requestsDeferred = metrics.counter("requests-deferred");
+        requestsDropped = metrics.counter("requests-dropped");
+        ferryFlights = metrics.counter("ferry-flights");
+        inFlight = metrics.counter("in-flight");
+        completedTrips = metrics.counter("trips-completed");
+        undergoingService = metrics.counter("undergoing-service");
+        servicesCompleted = metrics.counter("services-completed");
+        allocationLatency = metrics.histogram("allocation");
+        backlogWait = metrics.histogram("backlog-wait");
+        flightLatency = metrics.histogram("flight");
+        tripLatency = metrics.histogram("trip");
+        serviceWait = metrics.histogram("service-wait");
+        serviceLatency = metrics.histogram("service");
+        endToEndLatency = metrics.histogram("end-to-end");
+        metrics.gauge("service-queue", () -> getServiceQueueLength());
+        metrics.gauge("service-bays-busy", () -> getServiceBaysBusy());
+        metrics.gauge("backlog", () -> getBacklogSize());
+    }
+
+    public FleetRebalancer getRebalancer()
+    {
+        return rebalancer;
+    }
+
+    /**
+     * Handles a flight request made at 'createdNanos': allocates a plane at the origin and sends
+     * it on its way or, if there is none, adds the request to the origin's backlog (or drops it,
+     * if that is full).
+     */
+    public void request(int originId, int destinationId, long createdNanos)
+    {
+        requestsDispatched.increment();
+        eventLog.log(EventType.FLIGHT_REQUESTED, originId, destinationId, 0);
+        host.record(EventJournal.RecordType.FLIGHT_REQUESTED, originId, destinationId, 0, 0, 0);
+
+        // Resolve both airports first, so that an invalid request never ties up a plane.
+        Airport origin = airportRegistry.get(originId);
+        Airport destination = airportRegistry.get(destinationId);
+        if (origin == null || destination == null) {
+            invalidRequests.increment();
+            eventLog.log(EventType.INVALID_REQUEST, originId, destinationId, 0);
+            host.record(EventJournal.RecordType.INVALID_REQUEST, originId, destinationId, 0, 0, 0);
+            return;
+        }
+
+        Plane plane = findAvailablePlane(origin);
+        if (plane == null) {
+            // Wait in the origin's backlog for a plane to land there (or be sent there).
+            if (origin.getBacklogSize() >= Simulation.MAX_BACKLOG) {
+                requestsDropped.increment();
+                eventLog.log(EventType.REQUEST_DROPPED, originId, destinationId, 0);
+                host.record(EventJournal.RecordType.REQUEST_DROPPED, originId, destinationId, 0, 0, 0);
+                return;
+            }
+            plane = origin.acquirePlaneOrDefer(new DeferredRequest(destination, createdNanos, host.now()));
+            if (plane == null) {
+                requestsDeferred.increment();
+                eventLog.log(EventType.REQUEST_DEFERRED, originId, destinationId, 0);
+                host.record(EventJournal.RecordType.REQUEST_DEFERRED, originId, destinationId, 0, 0, 0);
+                return;
+            }
+            plane.setInFlight(true);
+        }
+        departPlane(plane, origin, destination, createdNanos);
+    }
+
+    /**
+     * Takes a plane from the airport's pool, marked as in flight, or returns null if there is none.
+     */
+    public Plane findAvailablePlane(Airport airport)
+    {
+        Plane plane = airport.acquirePlane();
+        if (plane != null) {
+            plane.setInFlight(true);
+        }
+        return plane;
+    }
+
+    /**
+     * Sends an allocated plane on its way to serve a flight request.
+     */
+    private void departPlane(Plane plane, Airport origin, Airport destination, long requestedNanos)
+    {
+        requestsServed.increment();
+        allocationLatency.record(host.now() - requestedNanos);
+        host.record(EventJournal.RecordType.PLANE_ALLOCATED, plane.getId(), origin.getId(), destination.getId(), 0, 0);
+        if (!host.handOff(plane, origin, destination, requestedNanos)) {
+            fly(plane, origin, destination, requestedNanos, false);
+        }
+        eventLog.log(EventType.PLANE_DEPARTED, plane.getId(), origin.getId(), destination.getId());
+    }
+
+    /**
+     * Flies an idle plane, taken from the 'from' airport's pool, empty to the 'to' airport, where
+     * there is a backlog. Called by the rebalancer.
+     */
+    private void ferryPlane(Plane plane, Airport from, Airport to)
+    {
+        plane.setInFlight(true);
+        ferryFlights.increment();
+        host.record(EventJournal.RecordType.FERRY_DEPARTED, plane.getId(), from.getId(), to.getId(), 0, 0);
+        fly(plane, from, to, host.now(), true);
+        eventLog.log(EventType.FERRY_DEPARTED, plane.getId(), from.getId(), to.getId());
+    }
+
+    /**
+     * Starts a plane's flight, including one handed over from another shard.
+     */
+    public void fly(Plane plane, Airport origin, Airport destination, long requestedNanos, boolean emptyLeg)
+    {
+        inFlight.increment();
+        host.statisticsChanged();
+        host.fly(plane, origin, destination, requestedNanos, emptyLeg);
+    }
+
+    /**
+     * Handles a plane's arrival: after a flight request, it waits for a service bay; after an
+     * empty leg, it is available straight away.
+     */
+    public void landed(Plane plane, Airport destination, long requestedNanos, long departedNanos, boolean emptyLeg)
+    {
+        host.record(EventJournal.RecordType.PLANE_LANDED, plane.getId(), destination.getId(), 0, plane.getX(), plane.getY());
+        long now = host.now();
+        inFlight.decrement();
+        if (emptyLeg) {
+            rebalancer.ferryLanded(destination);
+        } else {
+            completedTrips.increment();
+            flightLatency.record(now - departedNanos);
+            tripLatency.record(now - requestedNanos);
+        }
+        host.statisticsChanged();
+
+        plane.setAirport(destination);
+        eventLog.log(EventType.PLANE_LANDED, plane.getId(), destination.getId(), 0);
+        if (emptyLeg) {
+            releasePlane(plane, destination);  // Nothing to service after an empty leg.
+        } else {
+            plane.setServicing();
+            ServiceRequest request = new ServiceRequest(destination, plane, now, requestedNanos);
+            if (destination.getServiceBays().admit(request, now)) {
+                host.startService(request);
+            }
+        }
+    }
+
+    public void serviceStarted(ServiceRequest request)
+    {
+        // The bay counts as busy, and the wait ends, here rather than when the bay was given, so that
+        // any wait for a worker is included.
+        long now = host.now();
+        request.getAirport().getServiceBays().begin(request, now);
+        serviceWait.record(now - request.getCreatedNanos());
+        undergoingService.increment();
+        host.statisticsChanged();
+        eventLog.log(EventType.SERVICE_STARTED, request.getPlane().getId(), request.getAirport().getId(), 0);
+        host.record(EventJournal.RecordType.SERVICE_STARTED, request.getPlane().getId(), request.getAirport().getId(), 0, 0, 0);
+    }
+
+    public void serviceCompleted(ServiceRequest request, String message)
+    {
+        servicesCompleted.increment();
+        long now = host.now();
+        serviceLatency.record(now - request.getCreatedNanos());
+        endToEndLatency.record(now - request.getRequestedNanos());
+        undergoingService.decrement();
+        host.statisticsChanged();
+        eventLog.log(EventType.SERVICE_COMPLETED, request.getPlane().getId(), request.getAirport().getId(), 0, message);
+        host.record(EventJournal.RecordType.SERVICE_COMPLETED, request.getPlane().getId(), request.getAirport().getId(), 0, 0, 0);
+        finishService(request);
+    }
+
+    public void serviceFailed(ServiceRequest request, IOException e)
+    {
+        undergoingService.decrement();
+        host.statisticsChanged();
+        eventLog.log(EventType.SERVICE_FAILED, request.getPlane().getId(), request.getAirport().getId(), 0, e.getMessage());
+        host.record(EventJournal.RecordType.SERVICE_FAILED, request.getPlane().getId(), request.getAirport().getId(), 0, 0, 0);
+        finishService(request);  // Not retried, so that a broken servicer can't ground the fleet.
+    }
+
+    /**
+     * Frees the bay of a finished (or failed) service, starting the next plane waiting for it,
+     * and makes the serviced plane available.
+     */
+    private void finishService(ServiceRequest request)
+    {
+        Airport airport = request.getAirport();
+        ServiceRequest next = airport.getServiceBays().finish(host.now());
+        if (next != null) {
+            host.startService(next);
+        }
+        releasePlane(request.getPlane(), airport);
+    }
+
+    /**
+     * Makes a plane available at the given airport: either straight to its oldest waiting
+     * request, or to its pool.
+     */
+    private void releasePlane(Plane plane, Airport airport)
+    {
+        plane.setInFlight(false);
+        DeferredRequest waiting = airport.releasePlaneOrMatch(plane);
+        if (waiting != null) {
+            backlogWait.record(host.now() - waiting.getDeferredNanos());
+            host.record(EventJournal.RecordType.BACKLOG_MATCHED, plane.getId(), airport.getId(), waiting.getDestination().getId(), 0, 0);
+            plane.setInFlight(true);
+            departPlane(plane, airport, waiting.getDestination(), waiting.getRequestedNanos());
+        }
+    }
+
+    /**
+     * Forgets the services in progress, which have been abandoned (and re-queued at their bays).
+     */
+    /* default */ void servicesAbandoned()
+    {
+        undergoingService.set(0);
+    }
+
+    /**
+     * Sets the counters of a restored simulation.
+     */
+    /* default */ void restoreCounters(int inFlightCount, int completedTripCount, int requestsDispatchedCount,
+                                       int invalidRequestCount, int servicesCompletedCount)
+    {
+        inFlight.set(inFlightCount);
+        completedTrips.set(completedTripCount);
+        requestsDispatched.set(requestsDispatchedCount);
+        invalidRequests.set(invalidRequestCount);
+        servicesCompleted.set(servicesCompletedCount);
+    }
+
+    public String getStatusText()
+    {
+        return "In-Flight: " + inFlight.get() + " | Service: " + undergoingService.get() + " | Completed Trips: " + completedTrips.get();
+    }
+
+    public long getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    public long getUndergoingService()
+    {
+        return undergoingService.get();
+    }
+
+    public long getCompletedTrips()
+    {
+        return completedTrips.get();
+    }
+
+    public long getRequestsDispatched()
+    {
+        return requestsDispatched.get();
+    }
+
+    public long getInvalidRequests()
+    {
+        return invalidRequests.get();
+    }
+
+    public long getRequestsServed()
+    {
+        return requestsServed.get();
+    }
+
+    public long getServicesCompleted()
+    {
+        return servicesCompleted.get();
+    }
+
+    public LatencyHistogram getAllocationLatency()
+    {
+        return allocationLatency;
+    }
+
+    public LatencyHistogram getFlightLatency()
+    {
+        return flightLatency;
+    }
+
+    public LatencyHistogram getTripLatency()
+    {
+        return tripLatency;
+    }
+
+    public LatencyHistogram getServiceLatency()
+    {
+        return serviceLatency;
+    }
+
+    public LatencyHistogram getEndToEndLatency()
+    {
+        return endToEndLatency;
+    }
+
+    /**
+     * Returns the number of planes waiting for a service bay, over all airports.
+     */
+    public int getServiceQueueLength()
+    {
+        int total = 0;
+        for (Airport airport : airports) {
+            total += airport.getServiceBays().getQueueLength();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of service bays in use, over all airports.
+     */
+    public int getServiceBaysBusy()
+    {
+        int total = 0;
+        for (Airport airport : airports) {
+            total += airport.getServiceBays().getBusy();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of flight requests waiting for a plane, over all airports.
+     */
+    public int getBacklogSize()
+    {
+        int total = 0;
+        for (Airport airport : airports) {
+            total += airport.getBacklogSize();
+        }
+        return total;
+    }
+}
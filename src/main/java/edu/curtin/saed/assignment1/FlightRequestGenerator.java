@@ -0,0 +1,111 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates flight requests for many airports from a single thread, following the same pattern as
+ * the comms FlightRequests program: each airport requests a flight to a random other airport, then
+ * waits a random 1-5 seconds before the next one.
+ *
+ * Rather than one sleeping thread (or process) per airport, the airports' next request times are
+ * kept in a priority queue, and the generator sleeps only until the earliest of them.
+ */
+public class FlightRequestGenerator implements TrafficSource
+{
+    public static final int MIN_WAIT_MILLIS = 1000;
+    public static final int MAX_WAIT_MILLIS = 5000;
+
+    /**
+     * Receives generated requests. Airports are identified by 0-based index. flush() is called after
+     * each group of requests that fall due at the same time.
+     */
+    public interface Sink
+    {
+        void request(int originIndex, int destinationIndex);
+
+        void flush();
+    }
+
+    private final int numAirports;
+    private final int firstOrigin;
+    private final int originCount;
+    private final Random random;
+
+    public FlightRequestGenerator(int numAirports, Random random)
+    {
+        this(numAirports, 0, numAirports, random);
+    }
+
+    /**
+     * Creates a generator for which only the 'originCount' airports from index 'firstOrigin'
+     * request flights (to any of the airports), e.g. those owned by one shard.
+     */
+    public FlightRequestGenerator(int numAirports, int firstOrigin, int originCount, Random random)
+    {
+        if (numAirports < 2) {
+            throw new IllegalArgumentException("At least 2 airports are needed to generate flight requests");
+        }
+        if (firstOrigin < 0 || originCount < 1 || firstOrigin + originCount > numAirports) {
+            throw new IllegalArgumentException("Origin airports out of range");
+        }
+        this.numAirports = numAirports;
+        this.firstOrigin = firstOrigin;
+        this.originCount = originCount;
+        this.random = random;
+    }
+
+    /**
+     * Generates requests until the thread is interrupted.
+     */
+    @Override
+    public void run(Sink sink) throws InterruptedException
+    {
+        Queue<Schedule> schedule = new PriorityQueue<>(originCount, Comparator.comparingLong(s -> s.dueNanos));
+        long now = System.nanoTime();
+        for (int i = firstOrigin; i < firstOrigin + originCount; i++) {
+            schedule.add(new Schedule(i, now));
+        }
+
+        while (!Thread.currentThread().isInterrupted()) {
+            now = System.nanoTime();
+            Schedule next = schedule.peek();
+            long wait = next.dueNanos - now;
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+                continue;
+            }
+
+            while (next != null && next.dueNanos <= now) {
+                schedule.poll();
+                sink.request(next.airportIndex, randomDestination(next.airportIndex));
+                next.dueNanos += TimeUnit.MILLISECONDS.toNanos(MIN_WAIT_MILLIS + random.nextInt(MAX_WAIT_MILLIS - MIN_WAIT_MILLIS));
+                schedule.add(next);
+                next = schedule.peek();
+            }
+            sink.flush();
+        }
+    }
+
+    private int randomDestination(int originIndex)
+    {
+        // Pick from the other (numAirports - 1) airports, skipping over the origin.
+        int destination = random.nextInt(numAirports - 1);
+        return (destination >= originIndex) ? destination + 1 : destination;
+    }
+
+    private static class Schedule
+    {
+        private final int airportIndex;
+        private long dueNanos;
+
+        private Schedule(int airportIndex, long dueNanos)
+        {
+            this.airportIndex = airportIndex;
+            this.dueNanos = dueNanos;
+        }
+    }
+}
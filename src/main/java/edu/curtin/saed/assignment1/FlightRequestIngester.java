@@ -0,0 +1,168 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Feeds flight requests into the simulation's FlightRequestRing, from one of the sources described
+ * by IngestionMode. Process output is parsed directly from bytes by a FlightRequestParser, and
+ * in-process requests go straight into the ring, so ingestion creates next to no garbage.
+ */
+public class FlightRequestIngester
+{
+    private final int numAirports;
+    private final FlightRequestRing ring;
+    private final EventLog eventLog;
+    private int firstOrigin = 0;
+    private int originCount;
+    private TrafficSource trafficSource;  // Null for the usual FlightRequestGenerator.
+    private final List<Process> processes = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean running = false;
+
+    public FlightRequestIngester(int numAirports, FlightRequestRing ring, EventLog eventLog)
+    {
+        this.numAirports = numAirports;
+        this.originCount = numAirports;
+        this.ring = ring;
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Limits flight requests to those from the 'count' airports from index 'firstIndex' (e.g. the
+     * airports owned by one shard). By default, every airport requests flights. Call before start().
+     */
+    public void setOrigins(int firstIndex, int count)
+    {
+        if (firstIndex < 0 || count < 1 || firstIndex + count > numAirports) {
+            throw new IllegalArgumentException("Origin airports out of range");
+        }
+        this.firstOrigin = firstIndex;
+        this.originCount = count;
+    }
+
+    /**
+     * Sets where in-process requests come from, in place of a FlightRequestGenerator for the
+     * origin airports (or null to go back to one). Call before start().
+     */
+    public void setTrafficSource(TrafficSource trafficSource)
+    {
+        this.trafficSource = trafficSource;
+    }
+
+    /**
+     * Starts ingesting, using threads from the given executor.
+     */
+    public void start(IngestionMode mode, ExecutorService executor)
+    {
+        running = true;
+        switch (mode) {
+            case PROCESS_PER_AIRPORT:
+                for (int i = firstOrigin; i < firstOrigin + originCount; i++) {
+                    int originIndex = i;
+                    executor.submit(() -> readProcess("saed_flight_requests", originIndex));
+                }
+                break;
+            case MULTIPLEXED_PROCESS:
+                executor.submit(() -> readProcess("FlightRequestMux", FlightRequestParser.NO_FIXED_ORIGIN));
+                break;
+            case IN_PROCESS:
+                executor.submit(this::generateInProcess);
+                break;
+            default:
+                throw new AssertionError("Unknown ingestion mode: " + mode);
+        }
+    }
+
+    /**
+     * Stops ingesting. Closing the child processes also unblocks the threads reading from them.
+     * Threads generating requests in-process must be interrupted by the caller.
+     */
+    public void stop()
+    {
+        running = false;
+        synchronized (processes) {
+            for (Process proc : processes) {
+                proc.destroy();
+            }
+            processes.clear();
+        }
+    }
+
+    /**
+     * Returns the total number of requests received so far.
+     */
+    public long getRequestsReceived()
+    {
+        return ring.getAddedCount();
+    }
+
+    /**
+     * Returns the number of requests the traffic source skipped, if one was set (see
+     * TrafficSource.getSkippedCount()).
+     */
+    public long getRequestsSkipped()
+    {
+        return (trafficSource == null) ? 0 : trafficSource.getSkippedCount();
+    }
+
+    /**
+     * Runs either saed_flight_requests for one airport, or FlightRequestMux for all of them (when
+     * originIndex is NO_FIXED_ORIGIN), and parses its output into the ring.
+     */
+    private void readProcess(String name, int originIndex)
+    {
+        try {
+            Process proc;
+            if (originIndex == FlightRequestParser.NO_FIXED_ORIGIN) {
+                proc = Simulation.execJava(FlightRequestMux.class, String.valueOf(numAirports),
+                        String.valueOf(firstOrigin), String.valueOf(originCount));
+            } else {
+                proc = Simulation.exec(name, String.valueOf(numAirports), String.valueOf(originIndex));
+            }
+            processes.add(proc);
+
+            try (InputStream input = proc.getInputStream()) {
+                new FlightRequestParser(ring, originIndex).parse(input);
+            }
+        } catch (IOException | InterruptedException e) {
+            if (running) {
+                eventLog.log(EventType.ERROR, "reading from " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void generateInProcess()
+    {
+        try {
+            TrafficSource source = (trafficSource == null)
+                    ? new FlightRequestGenerator(numAirports, firstOrigin, originCount, new Random())
+                    : trafficSource;
+            source.run(new FlightRequestGenerator.Sink() {
+                @Override
+                public void request(int originIndex, int destinationIndex)
+                {
+                    try {
+                        ring.put(originIndex + 1, destinationIndex + 1, System.nanoTime());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void flush()
+                {
+                    // Requests are visible to the dispatcher as soon as they're put in the ring.
+                }
+            });
+        } catch (IOException e) {
+            eventLog.log(EventType.ERROR, "generating flight requests: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Entry point for a single flight request process serving every airport, in place of one
+ * saed_flight_requests process per airport. Takes the number of airports (and optionally the index
+ * of the first origin airport and the number of origins, if only some of them are to request
+ * flights), and writes one line per request to standard output: the origin and destination
+ * airport indices (0-based), separated by a space.
+ */
+public class FlightRequestMux
+{
+    public static void main(String[] args) throws InterruptedException
+    {
+        int numAirports;
+        int firstOrigin = 0;
+        int originCount;
+        try {
+            numAirports = Integer.parseInt(args[0]);
+            originCount = numAirports;
+            if (args.length >= 3) {
+                firstOrigin = Integer.parseInt(args[1]);
+                originCount = Integer.parseInt(args[2]);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Expected 1 or 3 arguments: the total number of airports (>= 2) [, first origin index, number of origins]");
+            return;
+        }
+
+        // If the simulation closes its end of the pipe, writing fails, and we stop by interrupting
+        // the generator.
+        try (BufferedWriter output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))) {
+            new FlightRequestGenerator(numAirports, firstOrigin, originCount, new Random()).run(new FlightRequestGenerator.Sink() {
+                @Override
+                public void request(int originIndex, int destinationIndex)
+                {
+                    try {
+                        output.write(Integer.toString(originIndex));
+                        output.write(' ');
+                        output.write(Integer.toString(destinationIndex));
+                        output.write('\n');
+                    } catch (IOException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void flush()
+                {
+                    try {
+                        output.flush();
+                    } catch (IOException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        } catch (IOException e) { // NOPMD - empty catch
+            // Closing fails if the simulation has already closed the pipe, which is normally how
+            // we get stopped.
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses a stream of flight requests straight from bytes into a FlightRequestRing, without
+ * creating Strings, boxed integers or request objects. Integers are decoded in place from a
+ * reusable buffer, and may span buffer boundaries.
+ *
+ * Each line is either "origin destination" (from FlightRequestMux), or, if the parser was given a
+ * fixed origin, just "destination" (from saed_flight_requests). Both are 0-based airport indices,
+ * and are converted to airport IDs (index + 1) as they are published.
+ */
+public class FlightRequestParser
+{
+    public static final int NO_FIXED_ORIGIN = -1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // The largest index whose airport ID (index + 1) is still an int.
+    private static final int MAX_INDEX = Integer.MAX_VALUE - 1;
+
+    private final FlightRequestRing ring;
+    private final int fixedOriginIndex;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final int[] fields = new int[2];
+    private int fieldCount = 0;
+    private int value = 0;
+    private boolean inNumber = false;
+    private long malformedLines = 0;
+
+    public FlightRequestParser(FlightRequestRing ring, int fixedOriginIndex)
+    {
+        this.ring = ring;
+        this.fixedOriginIndex = fixedOriginIndex;
+    }
+
+    /**
+     * Reads and publishes requests until the end of the stream, or until the thread is interrupted.
+     */
+    public void parse(InputStream input) throws IOException, InterruptedException
+    {
+        int length;
+        while ((length = input.read(buffer)) != -1) {
+            // One timestamp per read; all requests in the buffer arrived together.
+            long now = System.nanoTime();
+            for (int i = 0; i < length; i++) {
+                accept(buffer[i], now);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private void accept(byte b, long now) throws InterruptedException
+    {
+        if (b >= '0' && b <= '9') {
+            int digit = b - '0';
+            if (value > (MAX_INDEX - digit) / 10) {
+                // Too big to be an airport index (and would wrap around); skip the line.
+                skipLine();
+            } else if (fieldCount <= fields.length) {
+                value = value * 10 + digit;
+                inNumber = true;
+            }
+        } else if (b == ' ' || b == '\n') {
+            endNumber();
+            if (b == '\n') {
+                endLine(now);
+            }
+        } else if (b != '\r') {
+            // Anything else invalidates the line; skip the rest of it.
+            skipLine();
+        }
+    }
+
+    private void skipLine()
+    {
+        fieldCount = fields.length + 1;
+        inNumber = false;
+        value = 0;
+    }
+
+    private void endNumber()
+    {
+        if (inNumber) {
+            if (fieldCount < fields.length) {
+                fields[fieldCount] = value;
+            }
+            fieldCount++;
+            inNumber = false;
+            value = 0;
+        }
+    }
+
+    private void endLine(long now) throws InterruptedException
+    {
+        if (fixedOriginIndex == NO_FIXED_ORIGIN && fieldCount == 2) {
+            ring.put(fields[0] + 1, fields[1] + 1, now);
+        } else if (fixedOriginIndex != NO_FIXED_ORIGIN && fieldCount == 1) {
+            ring.put(fixedOriginIndex + 1, fields[0] + 1, now);
+        } else if (fieldCount > 0) {
+            malformedLines++;
+        }
+        fieldCount = 0;
+    }
+
+    public long getMalformedLines()
+    {
+        return malformedLines;
+    }
+}
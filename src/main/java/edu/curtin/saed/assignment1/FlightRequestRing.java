@@ -0,0 +1,194 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, preallocated queue of flight requests, stored as primitive (origin, destination,
+ * timestamp) triples rather than as objects, so that queueing a request creates no garbage.
+ *
+ * Any number of threads may add requests, without locking (each slot carries a sequence number
+ * that producers claim and publish, as in Dmitry Vyukov's bounded queue). Only one thread may
+ * take them out.
+ */
+public class FlightRequestRing
+{
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final long PUT_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Receives requests as they are taken from the ring.
+     */
+    public interface Handler
+    {
+        void request(int originId, int destinationId, long createdNanos);
+    }
+
+    private final int mask;
+    private final int[] originIds;
+    private final int[] destinationIds;
+    private final long[] createdNanos;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(0);
+    private volatile long head = 0;
+
+    private volatile Thread waitingConsumer = null;
+
+    public FlightRequestRing(int capacity)
+    {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two, and at least 2");
+        }
+        mask = capacity - 1;
+        originIds = new int[capacity];
+        destinationIds = new int[capacity];
+        createdNanos = new long[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity()
+    {
+        return mask + 1;
+    }
+
+    /**
+     * Adds a request if there is room, and returns whether it did.
+     */
+    public boolean offer(int originId, int destinationId, long created)
+    {
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                return false; // The consumer hasn't freed this slot yet; we're full.
+            }
+            // Otherwise, another producer claimed this position first; try the next one.
+        }
+
+        originIds[slot] = originId;
+        destinationIds[slot] = destinationId;
+        createdNanos[slot] = created;
+        sequences.set(slot, position + 1);
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a request, waiting for room if necessary.
+     */
+    public void put(int originId, int destinationId, long created) throws InterruptedException
+    {
+        while (!offer(originId, destinationId, created)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(PUT_BACKOFF_NANOS);
+        }
+    }
+
+    /**
+     * Takes up to 'max' requests, passing each to the handler, and returns how many there were.
+     * Never blocks. Consumer thread only.
+     */
+    public int drain(Handler handler, int max)
+    {
+        long position = head;
+        int count = 0;
+        while (count < max) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                break; // Not yet published.
+            }
+            handler.request(originIds[slot], destinationIds[slot], createdNanos[slot]);
+            sequences.set(slot, position + mask + 1);
+            position++;
+            count++;
+        }
+        head = position;
+        return count;
+    }
+
+    /**
+     * Passes every queued request to the handler without taking it, oldest first. Only valid
+     * while nothing else is using the ring (e.g. for a snapshot of a stopped simulation).
+     */
+    public void forEachQueued(Handler handler)
+    {
+        long position = head;
+        while (true) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                break;
+            }
+            handler.request(originIds[slot], destinationIds[slot], createdNanos[slot]);
+            position++;
+        }
+    }
+
+    /**
+     * Waits until at least one request is available, or the timeout expires, and returns whether
+     * one is. Consumer thread only.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+
+            // Producers check for a waiting consumer only after publishing, so we must announce
+            // ourselves before the final emptiness check.
+            waitingConsumer = Thread.currentThread();
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            waitingConsumer = null;
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    public boolean isEmpty()
+    {
+        long position = head;
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /**
+     * Returns the number of queued requests. This is approximate while requests are being added.
+     */
+    public int size()
+    {
+        return (int) Math.max(0, Math.min(tail.get() - head, capacity()));
+    }
+
+    /**
+     * Returns the total number of requests ever added.
+     */
+    public long getAddedCount()
+    {
+        return tail.get();
+    }
+}
@@ -0,0 +1,56 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Runs each service as a separate saed_plane_service process. Several threads may call service()
+ * at once, each then waiting for its own process.
+ *
+ * close() may be called from another thread to abort the services in progress, by destroying
+ * their processes; once closed, no more services are started.
+ */
+public class ForkingPlaneServicer implements PlaneServicer
+{
+    private final Object lock = new Object();
+    private final Set<Process> current = new HashSet<>();  // The services in progress; guarded by lock.
+    private boolean closed = false;
+
+    @Override
+    public String service(int airportId, int planeId) throws IOException
+    {
+        Process proc;
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("Plane servicer closed");
+            }
+            proc = Simulation.exec("saed_plane_service", String.valueOf(airportId), String.valueOf(planeId));
+            current.add(proc);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
+            String reply = reader.readLine();
+            if (reply == null) {
+                throw new IOException("saed_plane_service exited without a result");
+            }
+            return reply;
+        } finally {
+            synchronized (lock) {
+                current.remove(proc);
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized (lock) {
+            closed = true;
+            for (Process proc : current) {
+                proc.destroy();  // Ends its output, so the blocked readLine() returns.
+            }
+        }
+    }
+}
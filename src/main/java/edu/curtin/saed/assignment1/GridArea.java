@@ -4,8 +4,10 @@ package edu.curtin.saed.assignment1;
 
 import javafx.geometry.VPos;
 import javafx.scene.canvas.*;
-import javafx.scene.transform.Affine;
 import javafx.scene.image.Image;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.TextAlignment;
@@ -30,21 +32,97 @@ import java.util.*;
  *
  * Remember to call area.requestLayout() to ask the GUI to redraw the panel after you've modified
  * something. If you're making several changes at once, only call it once at the end.
+ *
+ * The user can zoom with the mouse wheel (about the mouse pointer), pan by dragging, and
+ * double-click to go back to the whole area. Only icons within the visible part of the area are
+ * drawn. Icons too small to make out are drawn as dots, places where icons pile up are drawn as a
+ * density heatmap rather than icon by icon, and captions only appear once zoomed in far enough to
+ * read them. The grid lines are drawn on a separate background canvas, and only redrawn when the
+ * view changes.
  */
 public class GridArea extends Pane
 {
+    private static final double MAX_ZOOM = 100.0;
+    private static final double ZOOM_PER_SCROLL_PIXEL = 1.005;
+
+    /** Icons drawn smaller than this (in pixels) are drawn as dots instead. */
+    private static final double MIN_IMAGE_PIXELS = 12.0;
+
+    /** Captions are only drawn for icons drawn at least this big (in pixels). */
+    private static final double MIN_CAPTION_PIXELS = 40.0;
+
+    private static final double DOT_PIXELS = 3.0;
+
+    /** The size (in pixels) of the screen squares over which icon density is measured. */
+    private static final int HEAT_CELL_PIXELS = 16;
+
+    /** A heat cell with more icons than this is drawn as a heatmap square. */
+    private static final int CROWDED_ICONS = 8;
+
+    /** Heat colours, from just over CROWDED_ICONS icons to HEAT_SATURATION or more. */
+    private static final Color[] HEAT_COLOURS = new Color[16];
+    private static final int HEAT_SATURATION = 1000;
+
+    static
+    {
+        for(int i = 0; i < HEAT_COLOURS.length; i++)
+        {
+            double heat = (double) i / (HEAT_COLOURS.length - 1);
+            HEAT_COLOURS[i] = Color.hsb(60.0 * (1.0 - heat), 1.0, 1.0, 0.5 + 0.4 * heat);
+        }
+    }
+
     private double gridWidth;
     private double gridHeight;
-    private double gridSquareSize = 1.0; // Re-calculated
+    private double gridSquareSize = 1.0; // Re-calculated, including the zoom.
     private boolean gridLines = true;
     private Color captionColour = Color.WHITE;
     private List<GridAreaIcon> icons = new ArrayList<>();
+    private Canvas background = null;
     private Canvas canvas = null;
+    private SpriteCache sprites = new SpriteCache();
+
+    // The view: the zoom factor (1.0 fits the whole area) and the grid coordinates of the top-left
+    // corner of the visible area. (Icons are centred on their coordinates, so the whole area
+    // starts half a grid square above and to the left of (0, 0).)
+    private double zoom = 1.0;
+    private double viewX = -0.5;
+    private double viewY = -0.5;
+    private double dragX;
+    private double dragY;
+
+    // What the background canvas was last drawn for.
+    private boolean backgroundValid = false;
+    private double backgroundWidth;
+    private double backgroundHeight;
+    private double backgroundSquareSize;
+    private double backgroundViewX;
+    private double backgroundViewY;
+
+    // Reused between redraws: the heat cell each icon falls in (-1 if not drawn), and the number
+    // of icons in each heat cell.
+    private int[] iconHeatCells = new int[0];
+    private int[] heatCounts = new int[0];
 
     public GridArea(double gridWidth, double gridHeight)
     {
         this.gridWidth = gridWidth;
         this.gridHeight = gridHeight;
+
+        setOnScroll(event -> zoomAt(event));
+        setOnMousePressed(event ->
+        {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        setOnMouseDragged(event -> pan(event));
+        setOnMouseClicked(event ->
+        {
+            if(event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2)
+            {
+                resetView();
+            }
+        });
     }
 
     /**
@@ -53,6 +131,7 @@ public class GridArea extends Pane
     public void setGridLines(boolean gridLines)
     {
         this.gridLines = gridLines;
+        backgroundValid = false;
     }
 
     /**
@@ -68,13 +147,71 @@ public class GridArea extends Pane
     }
 
     /**
-     * Sets the colour used to display the caption text for each icon.
+     * Sets the colour used to display the caption text for each icon, and icons drawn as dots.
      */
     public void setCaptionColour(Color captionColour)
     {
         this.captionColour = captionColour;
     }
 
+    public double getZoom()
+    {
+        return zoom;
+    }
+
+    /**
+     * Zooms and pans back out to show the whole area.
+     */
+    public void resetView()
+    {
+        zoom = 1.0;
+        viewX = -0.5;
+        viewY = -0.5;
+        requestLayout();
+    }
+
+    /**
+     * Zooms in or out in response to the mouse wheel, keeping the point under the mouse pointer
+     * where it is.
+     */
+    private void zoomAt(ScrollEvent event)
+    {
+        double oldSize = gridSquareSize;
+        double newZoom = zoom * Math.pow(ZOOM_PER_SCROLL_PIXEL, event.getDeltaY());
+        zoom = Math.max(1.0, Math.min(MAX_ZOOM, newZoom));
+        double newSize = fitSquareSize() * zoom;
+
+        if(zoom == 1.0)
+        {
+            resetView();
+        }
+        else
+        {
+            viewX += event.getX() / oldSize - event.getX() / newSize;
+            viewY += event.getY() / oldSize - event.getY() / newSize;
+            requestLayout();
+        }
+        event.consume();
+    }
+
+    private void pan(MouseEvent event)
+    {
+        viewX -= (event.getX() - dragX) / gridSquareSize;
+        viewY -= (event.getY() - dragY) / gridSquareSize;
+        dragX = event.getX();
+        dragY = event.getY();
+        requestLayout();
+        event.consume();
+    }
+
+    /**
+     * Returns the size of a grid cell, in pixels, when the whole area fits in the pane.
+     */
+    private double fitSquareSize()
+    {
+        return Math.min(getWidth() / gridWidth, getHeight() / gridHeight);
+    }
+
     /**
      * Redraws the grid area, either because the user is manipulating the window, OR because you've
      * called 'requestLayout()'.
@@ -85,47 +222,180 @@ public class GridArea extends Pane
         super.layoutChildren();
         if(canvas == null)
         {
+            background = new Canvas();
+            background.widthProperty().bind(widthProperty());
+            background.heightProperty().bind(heightProperty());
             canvas = new Canvas();
             canvas.widthProperty().bind(widthProperty());
             canvas.heightProperty().bind(heightProperty());
-            getChildren().add(canvas);
+            getChildren().addAll(background, canvas);
+        }
+
+        // First, calculate how big each grid cell should be, in pixels. (We do need to do this
+        // every time we repaint the arena, because the size can change.)
+        gridSquareSize = fitSquareSize() * zoom;
+
+        if(!backgroundValid
+            || backgroundWidth != getWidth() || backgroundHeight != getHeight()
+            || backgroundSquareSize != gridSquareSize
+            || backgroundViewX != viewX || backgroundViewY != viewY)
+        {
+            drawBackground();
         }
 
         GraphicsContext gfx = canvas.getGraphicsContext2D();
         gfx.clearRect(0.0, 0.0, canvas.getWidth(), canvas.getHeight());
+        sprites.setSize(gridSquareSize);
+        drawIcons(gfx);
+    }
 
-        // First, calculate how big each grid cell should be, in pixels. (We do need to do this
-        // every time we repaint the arena, because the size can change.)
-        gridSquareSize = Math.min(getWidth() / gridWidth,
-                                  getHeight() / gridHeight);
+    /**
+     * Draws the grid lines (those that are visible) onto the background canvas.
+     */
+    private void drawBackground()
+    {
+        GraphicsContext gfx = background.getGraphicsContext2D();
+        gfx.clearRect(0.0, 0.0, background.getWidth(), background.getHeight());
 
         if(gridLines)
         {
             // Draw the arena grid lines. This may help for debugging purposes, and just generally
             // to see what's going on.
             gfx.setStroke(Color.DARKGREY);
+            double top = Math.max(screenY(0.0), 0.0);
+            double bottom = Math.min(screenY(gridHeight - 1.0), getHeight());
+            double left = Math.max(screenX(0.0), 0.0);
+            double right = Math.min(screenX(gridWidth - 1.0), getWidth());
+
+            for(double gridX = Math.max(Math.ceil(viewX), 0.0); gridX < gridWidth; gridX++) // Internal vertical grid lines
+            {
+                double x = screenX(gridX);
+                if(x > getWidth())
+                {
+                    break;
+                }
+                gfx.strokeLine(x, top, x, bottom);
+            }
 
-            for(double gridX = 0.0; gridX < gridWidth; gridX++) // Internal vertical grid lines
+            for(double gridY = Math.max(Math.ceil(viewY), 0.0); gridY < gridHeight; gridY++) // Internal horizontal grid lines
             {
-                double x = (gridX + 0.5) * gridSquareSize;
-                gfx.strokeLine(x, gridSquareSize / 2.0, x, (gridHeight - 0.5) * gridSquareSize);
+                double y = screenY(gridY);
+                if(y > getHeight())
+                {
+                    break;
+                }
+                gfx.strokeLine(left, y, right, y);
             }
+        }
+
+        backgroundValid = true;
+        backgroundWidth = getWidth();
+        backgroundHeight = getHeight();
+        backgroundSquareSize = gridSquareSize;
+        backgroundViewX = viewX;
+        backgroundViewY = viewY;
+    }
+
+    /**
+     * Draws the visible icons: first working out which heat cell each falls in, then drawing
+     * crowded heat cells as heatmap squares and everything else icon by icon.
+     */
+    private void drawIcons(GraphicsContext gfx)
+    {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        int heatColumns = (int) (width / HEAT_CELL_PIXELS) + 1;
+        int heatRows = (int) (height / HEAT_CELL_PIXELS) + 1;
+        if(heatCounts.length < heatColumns * heatRows)
+        {
+            heatCounts = new int[heatColumns * heatRows];
+        }
+        Arrays.fill(heatCounts, 0);
+        if(iconHeatCells.length < icons.size())
+        {
+            iconHeatCells = new int[icons.size()];
+        }
 
-            for(double gridY = 0.0; gridY < gridHeight; gridY++) // Internal horizontal grid lines
+        // Cull icons whose image can't reach the visible area. (Captions of icons just above the
+        // top edge may be cut off.)
+        double margin = gridSquareSize / 2.0;
+        double maxX = width + margin;
+        double maxY = height + margin;
+        for(int i = 0; i < icons.size(); i++)
+        {
+            var icon = icons.get(i);
+            double x = screenX(icon.getX());
+            double y = screenY(icon.getY());
+            if(!icon.isShown() || x < -margin || y < -margin || x > maxX || y > maxY)
             {
-                double y = (gridY + 0.5) * gridSquareSize;
-                gfx.strokeLine(gridSquareSize / 2.0, y, (gridWidth - 0.5) * gridSquareSize, y);
+                iconHeatCells[i] = -1;
+                continue;
             }
+            int column = Math.min(Math.max((int) (x / HEAT_CELL_PIXELS), 0), heatColumns - 1);
+            int row = Math.min(Math.max((int) (y / HEAT_CELL_PIXELS), 0), heatRows - 1);
+            int cell = row * heatColumns + column;
+            iconHeatCells[i] = cell;
+            heatCounts[cell]++;
         }
 
-        // Draw all the images and their captions.
-        for(var icon : icons)
+        for(int i = 0; i < icons.size(); i++)
         {
-            if(icon.isShown())
+            int cell = iconHeatCells[i];
+            if(cell >= 0 && heatCounts[cell] <= CROWDED_ICONS)
             {
-                drawIcon(gfx, icon);
+                var icon = icons.get(i);
+                if(gridSquareSize < MIN_IMAGE_PIXELS)
+                {
+                    gfx.setFill(captionColour);
+                    gfx.fillRect(screenX(icon.getX()) - DOT_PIXELS / 2.0,
+                                 screenY(icon.getY()) - DOT_PIXELS / 2.0,
+                                 DOT_PIXELS, DOT_PIXELS);
+                }
+                else
+                {
+                    drawIcon(gfx, icon);
+                }
             }
         }
+
+        drawHeatmap(gfx, heatColumns, heatRows);
+    }
+
+    /**
+     * Draws a square over each heat cell holding more than CROWDED_ICONS icons, coloured by
+     * (roughly the logarithm of) how many.
+     */
+    private void drawHeatmap(GraphicsContext gfx, int heatColumns, int heatRows)
+    {
+        double scale = (HEAT_COLOURS.length - 1) / Math.log((double) HEAT_SATURATION / CROWDED_ICONS);
+        for(int cell = 0; cell < heatColumns * heatRows; cell++)
+        {
+            int count = heatCounts[cell];
+            if(count > CROWDED_ICONS)
+            {
+                int shade = (int) (Math.log((double) count / CROWDED_ICONS) * scale);
+                gfx.setFill(HEAT_COLOURS[Math.min(shade, HEAT_COLOURS.length - 1)]);
+                gfx.fillRect((cell % heatColumns) * HEAT_CELL_PIXELS,
+                             (cell / heatColumns) * HEAT_CELL_PIXELS,
+                             HEAT_CELL_PIXELS, HEAT_CELL_PIXELS);
+            }
+        }
+    }
+
+    /**
+     * Returns the horizontal pixel coordinate of the centre of grid position x.
+     */
+    private double screenX(double x)
+    {
+        return (x - viewX) * gridSquareSize;
+    }
+
+    /**
+     * Returns the vertical pixel coordinate of the centre of grid position y.
+     */
+    private double screenY(double y)
+    {
+        return (y - viewY) * gridSquareSize;
     }
 
     /**
@@ -135,13 +405,41 @@ public class GridArea extends Pane
     private void drawIcon(GraphicsContext gfx, GridAreaIcon icon)
     {
         // Get the pixel coordinates representing the centre of where the image is to be drawn.
-        double x = (icon.getX() + 0.5) * gridSquareSize;
-        double y = (icon.getY() + 0.5) * gridSquareSize;
+        double x = screenX(icon.getX());
+        double y = screenY(icon.getY());
 
-        // We also need to know how "big" to make the image. The image file has a natural width
+        // Where possible, draw a copy of the image already scaled and rotated. (Its rotation is
+        // rounded to the nearest multiple of 360 / SpriteCache.ANGLES degrees.)
+        var image = icon.getImage();
+        var sprite = sprites.getSprite(image, icon.getRotation());
+        if(sprite != null)
+        {
+            gfx.drawImage(sprite, x - sprite.getWidth() / 2.0, y - sprite.getHeight() / 2.0);
+        }
+        else
+        {
+            drawTransformedImage(gfx, image, x, y, icon.getRotation());
+        }
+
+        // Draw the caption below the image, if it's big enough to read.
+        if(gridSquareSize >= MIN_CAPTION_PIXELS)
+        {
+            gfx.setTextAlign(TextAlignment.CENTER);
+            gfx.setTextBaseline(VPos.TOP);
+            gfx.setStroke(captionColour);
+            gfx.strokeText(icon.getCaption(), x, y + (gridSquareSize / 2.0));
+        }
+    }
+
+    /**
+     * Draws an image scaled to fit a grid square (keeping its aspect ratio) and rotated, centred
+     * at pixel coordinates (x, y).
+     */
+    private void drawTransformedImage(GraphicsContext gfx, Image image, double x, double y, double rotation)
+    {
+        // We need to know how "big" to make the image. The image file has a natural width
         // and height, but that's not necessarily the size we want to draw it on the screen. We
         // do, however, want to preserve its aspect ratio.
-        var image = icon.getImage();
         double fullSizePixelWidth = image.getWidth();
         double fullSizePixelHeight = image.getHeight();
 
@@ -165,7 +463,7 @@ public class GridArea extends Pane
         // Actually put the image on the screen.
         gfx.save();
         gfx.translate(x, y);
-        gfx.rotate(icon.getRotation());
+        gfx.rotate(rotation);
         gfx.drawImage(
             image,
             -displayedPixelWidth / 2.0,
@@ -173,11 +471,5 @@ public class GridArea extends Pane
             displayedPixelWidth,
             displayedPixelHeight);
         gfx.restore();
-
-        // Draw the caption below the image.
-        gfx.setTextAlign(TextAlignment.CENTER);
-        gfx.setTextBaseline(VPos.TOP);
-        gfx.setStroke(captionColour);
-        gfx.strokeText(icon.getCaption(), x, y + (gridSquareSize / 2.0));
     }
 }
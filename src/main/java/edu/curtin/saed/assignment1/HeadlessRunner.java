@@ -0,0 +1,482 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the simulation without a GUI, for a fixed number of seconds or until a fixed number of
+ * flight requests have been dispatched, then prints throughput and latency statistics. With
+ * --journal, every event is also recorded in the given directory. With --replay, a previously
+ * recorded journal is played back instead (as fast as possible, unless --speed is given). With
+ * --restore, the run resumes from a snapshot file rather than a fresh random layout; with
+ * --snapshot, the state at the end of the run is saved for a later --restore. With --metrics, a
+ * snapshot of the simulation's metrics is written every --metrics-every seconds (to a file, or to
+ * standard output if the file is "-"), covering the latency of each stage since the last one.
+ * Idle planes are repositioned towards airports with a backlog every --rebalance-every
+ * milliseconds (0 to never reposition them). With --shards, the airports are split between that
+ * many worker JVMs, coordinated by a ShardCoordinator (without journals, snapshots or metrics).
+ * With --virtual, a DiscreteEventSimulation runs instead, for --seconds of virtual time, as fast
+ * as possible or at --speed times real time; the same --seed always gives the same results.
+ * With --scenario, the world, fleet and traffic come from a Scenario file instead (in which case
+ * --airports, --planes and --seed are ignored).
+ *
+ * The options are parsed by RunOptions, which also lists them (see RunOptions.USAGE). Run via
+ * Launcher, e.g. ./gradlew run --args="--headless --seconds 60".
+ */
+public class HeadlessRunner implements SimulationListener
+{
+    private static final long POLL_MILLIS = 100;
+    private static final int BUSIEST_AIRPORTS = 5;
+
+    private final boolean verbose;
+
+    public HeadlessRunner(boolean verbose)
+    {
+        this.verbose = verbose;
+    }
+
+    public static void main(String[] args)
+    {
+        RunOptions options;
+        try {
+            options = RunOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid arguments (" + e.getMessage() + ").");
+            System.err.println(RunOptions.USAGE);
+            return;
+        }
+
+        HeadlessRunner runner = new HeadlessRunner(options.isVerbose());
+        if (options.getReplayDirectory() != null) {
+            runner.replay(options.getReplayDirectory(), options.getSpeed());
+            return;
+        }
+
+        Scenario scenario = null;
+        if (options.getScenarioFile() != null) {
+            try {
+                scenario = Scenario.load(options.getScenarioFile());
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Cannot load scenario: " + e.getMessage());
+                return;
+            }
+            System.out.printf("Scenario:            %s (%s traffic, seed %d)%n",
+                    scenario.getName(), scenario.getTraffic().name().toLowerCase(Locale.ROOT).replace('_', '-'), scenario.getSeed());
+        }
+        if (options.getExecutorMode().resolve() != options.getExecutorMode()) {
+            System.err.println("Virtual threads need Java 21 or later; using platform threads");
+        }
+
+        if (options.isVirtual()) {
+            runner.startVirtual(options, scenario);
+        } else if (options.getShards() > 0) {
+            runner.startSharded(options, scenario);
+        } else {
+            runner.start(options, scenario);
+        }
+    }
+
+    /**
+     * Sets up and runs a DiscreteEventSimulation, for --virtual.
+     */
+    private void startVirtual(RunOptions options, Scenario scenario)
+    {
+        if (options.getShards() > 0 || options.getJournalDirectory() != null || options.getRestoreFile() != null
+                || options.getSnapshotFile() != null || options.getMetricsFile() != null) {
+            System.err.println("--shards, --journal, --restore, --snapshot and --metrics are not supported with --virtual");
+            return;
+        }
+        DiscreteEventSimulation simulation;
+        try {
+            simulation = (scenario == null)
+                    ? new DiscreteEventSimulation(options.getNumAirports(), options.getPlanesPerAirport(), options.getSeed())
+                    : DiscreteEventSimulation.fromScenario(scenario);
+            simulation.setSpeed(options.getSpeed());
+            simulation.setServiceBays(options.getServiceBays());
+            simulation.setServiceWorkers(options.getServiceWorkers());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid arguments (" + e.getMessage() + ")");
+            return;
+        }
+        simulation.setRebalancePeriodMillis(options.getRebalanceMillis());
+        if (scenario == null) {
+            System.out.printf("Seed:                %d%n", options.getSeed());
+        }
+        runVirtual(simulation, options.getSeconds(), options.getRequests());
+    }
+
+    /**
+     * Sets up and runs a ShardCoordinator, for --shards.
+     */
+    private void startSharded(RunOptions options, Scenario scenario)
+    {
+        if (options.getJournalDirectory() != null || options.getRestoreFile() != null || options.getSnapshotFile() != null
+                || options.getMetricsFile() != null || scenario != null) {
+            System.err.println("--journal, --restore, --snapshot, --metrics and --scenario are not supported with --shards");
+            return;
+        }
+        ShardLayout layout;
+        try {
+            layout = new ShardLayout(options.getNumAirports(), options.getShards());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid arguments (" + e.getMessage() + ")");
+            return;
+        }
+        ShardCoordinator coordinator = new ShardCoordinator(layout, options.getPlanesPerAirport(), options.getSeed(),
+                options.getWorkerArguments());
+        runSharded(coordinator, options.getSeconds(), options.getRequests());
+    }
+
+    /**
+     * Sets up and runs an ordinary Simulation, from a scenario, a snapshot or scratch, with its
+     * journal, metrics and final snapshot if asked for.
+     */
+    private void start(RunOptions options, Scenario scenario)
+    {
+        Path restoreFile = options.getRestoreFile();
+        Simulation simulation;
+        if (scenario != null && restoreFile != null) {
+            System.err.println("--scenario and --restore cannot be used together");
+            return;
+        } else if (scenario != null) {
+            if (options.getIngestionMode() != null && scenario.getTraffic() != Scenario.Traffic.CLASSIC) {
+                System.err.println("--ingest only applies to scenarios with classic traffic");
+                return;
+            }
+            try {
+                simulation = scenario.createSimulation(this);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid scenario (" + e.getMessage() + ")");
+                return;
+            }
+        } else if (restoreFile == null) {
+            simulation = new Simulation(this, options.getNumAirports(), options.getPlanesPerAirport(), Simulation.PLANE_SPEED);
+        } else {
+            try {
+                long startTime = System.nanoTime();
+                simulation = SimulationSnapshot.restore(this, restoreFile);
+                System.out.printf("Restored %s in %.1f ms%n", restoreFile, (System.nanoTime() - startTime) / 1e6);
+            } catch (IOException e) {
+                System.err.println("Cannot restore snapshot: " + e);
+                return;
+            }
+        }
+        options.configure(simulation);
+
+        Path journalDirectory = options.getJournalDirectory();
+        EventJournal journal = null;
+        if (journalDirectory != null) {
+            try {
+                journal = new EventJournal(journalDirectory);
+            } catch (IOException e) {
+                System.err.println("Cannot create journal: " + e);
+                return;
+            }
+            simulation.setJournal(journal);
+        }
+
+        String metricsFile = options.getMetricsFile();
+        int seconds = options.getSeconds();
+        int requests = options.getRequests();
+        if (metricsFile == null) {
+            run(simulation, seconds, requests);
+        } else if ("-".equals(metricsFile)) {
+            run(simulation, seconds, requests, new MetricsReporter(simulation.getMetrics(), System.out, options.getMetricsFormat()),
+                    options.getMetricsSeconds());
+        } else {
+            try (PrintStream metricsOut = new PrintStream(Files.newOutputStream(Paths.get(metricsFile)), false, StandardCharsets.UTF_8)) {
+                run(simulation, seconds, requests, new MetricsReporter(simulation.getMetrics(), metricsOut, options.getMetricsFormat()),
+                        options.getMetricsSeconds());
+            } catch (IOException e) {
+                System.err.println("Cannot write metrics: " + e);
+                return;
+            }
+        }
+
+        if (journal != null) {
+            journal.close();
+            System.out.printf("Journal:             %d records in %d segment(s) in %s%n",
+                    journal.getRecordCount(), journal.getSegmentCount(), journalDirectory);
+        }
+        Path snapshotFile = options.getSnapshotFile();
+        if (snapshotFile != null) {
+            try {
+                long startTime = System.nanoTime();
+                SimulationSnapshot.save(simulation, snapshotFile);
+                System.out.printf("Snapshot:            saved to %s in %.1f ms%n", snapshotFile, (System.nanoTime() - startTime) / 1e6);
+            } catch (IOException e) {
+                System.err.println("Cannot save snapshot: " + e);
+            }
+        }
+    }
+
+    /**
+     * Runs as run() does, with the given reporter writing the simulation's metrics every
+     * 'periodSeconds' seconds, and once more at the end.
+     */
+    public void run(Simulation simulation, int seconds, int requests, MetricsReporter reporter, double periodSeconds)
+    {
+        reporter.start(Math.max(1, (long) (periodSeconds * 1000)));
+        try {
+            run(simulation, seconds, requests);
+        } finally {
+            reporter.stop();
+        }
+    }
+
+    /**
+     * Runs until 'seconds' have elapsed or 'requests' have been dispatched, whichever comes
+     * first. A negative value disables that limit.
+     */
+    public void run(Simulation simulation, int seconds, int requests)
+    {
+        long startTime = System.nanoTime();
+        long deadline = (seconds >= 0) ? startTime + seconds * 1_000_000_000L : Long.MAX_VALUE;
+
+        double elapsed;
+        EventLog eventLog = simulation.getEventLog();
+
+        simulation.start();
+        try {
+            while (System.nanoTime() < deadline
+                    && (requests < 0 || simulation.getRequestsDispatched() < requests)) {
+                Thread.sleep(POLL_MILLIS);
+                printEvents(eventLog);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            elapsed = (System.nanoTime() - startTime) / 1e9;
+            simulation.stop();
+        }
+        printEvents(eventLog);
+
+        MetricsRegistry.Snapshot metrics = simulation.getMetrics().snapshot();
+        System.out.printf("Elapsed:             %.1f s%n", elapsed);
+        System.out.printf("Requests received:   %d (%.1f/s; %d skipped by traffic that fell behind)%n", simulation.getRequestsReceived(),
+                simulation.getRequestsReceived() / elapsed, metrics.getValue("requests-skipped"));
+        System.out.printf("Requests dispatched: %d (%.1f/s)%n", simulation.getRequestsDispatched(), simulation.getRequestsDispatched() / elapsed);
+        System.out.printf("Invalid requests:    %d%n", simulation.getInvalidRequests());
+        System.out.printf("Requests served:     %d (%.1f per plane-hour; %d waited for a plane, %d dropped, %d still waiting)%n",
+                metrics.getValue("requests-served"), simulation.getRequestsServedPerPlaneHour(), metrics.getValue("requests-deferred"),
+                metrics.getValue("requests-dropped"), simulation.getBacklogSize());
+        System.out.printf("Trips completed:     %d (%.1f/s; %d empty repositioning legs)%n",
+                simulation.getCompletedTrips(), simulation.getCompletedTrips() / elapsed, metrics.getValue("ferry-flights"));
+        System.out.printf("Services completed:  %d (%.1f/s)%n", simulation.getServicesCompleted(), simulation.getServicesCompleted() / elapsed);
+        System.out.printf("Conflicts:           %d (separation %.2f)%n", simulation.getConflicts(), simulation.getSpatialIndex().getSeparation());
+        BatchingDispatcher dispatcher = simulation.getDispatcher();
+        System.out.printf("Dispatch batches:    %d (mean size %.1f, largest %d, queue depth at end %d)%n",
+                dispatcher.getBatchCount(), dispatcher.getAverageBatchSize(), dispatcher.getLargestBatchSize(), dispatcher.getQueueDepth());
+        System.out.println("Request -> plane allocated: " + simulation.getAllocationLatency().summary());
+        System.out.println("Waiting in backlog:         " + metrics.getLatency("backlog-wait").summary());
+        System.out.println("Departed -> landed:         " + simulation.getFlightLatency().summary());
+        System.out.println("Request -> landed:          " + simulation.getTripLatency().summary());
+        System.out.println("Landed -> service start:    " + metrics.getLatency("service-wait").summary());
+        System.out.println("Landed -> serviced:         " + simulation.getServiceLatency().summary());
+        System.out.println("Request -> serviced:        " + simulation.getEndToEndLatency().summary());
+        printBusiestAirports(simulation.getAirports(), System.nanoTime());
+        System.out.printf("Events logged:       %d (dropped %d, overwritten %d)%n",
+                eventLog.getLoggedCount(), eventLog.getDroppedCount(), eventLog.getOverwrittenCount());
+    }
+
+    /**
+     * Runs a discrete-event simulation until 'seconds' of virtual time have passed or 'requests'
+     * have been dispatched (checked after each virtual second), then prints its statistics.
+     */
+    public void runVirtual(DiscreteEventSimulation simulation, int seconds, int requests)
+    {
+        long startTime = System.nanoTime();
+        long end = (seconds >= 0) ? TimeUnit.SECONDS.toNanos(seconds) : Long.MAX_VALUE;
+        long step = TimeUnit.SECONDS.toNanos(1);
+        MetricsRegistry metrics = simulation.getMetrics();
+        try {
+            while (simulation.now() < end
+                    && (requests < 0 || metrics.snapshot().getValue("requests-dispatched") < requests)) {
+                simulation.run(Math.min(end, simulation.now() + step));
+                printEvents(simulation.getEventLog());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+        double simulated = simulation.now() / 1e9;
+
+        MetricsRegistry.Snapshot values = metrics.snapshot();
+        System.out.printf("Simulated:           %.1f s in %.2f s (%.0fx real time)%n", simulated, elapsed, simulated / elapsed);
+        System.out.printf("Events processed:    %d (%.0f/s)%n", simulation.getEventsProcessed(), simulation.getEventsProcessed() / elapsed);
+        System.out.printf("Requests dispatched: %d (%.1f per simulated second)%n",
+                values.getValue("requests-dispatched"), values.getValue("requests-dispatched") / simulated);
+        System.out.printf("Requests served:     %d (%d waited for a plane, %d dropped, %d still waiting)%n",
+                values.getValue("requests-served"), values.getValue("requests-deferred"), values.getValue("requests-dropped"),
+                values.getValue("backlog"));
+        System.out.printf("Trips completed:     %d (%d empty repositioning legs)%n",
+                values.getValue("trips-completed"), values.getValue("ferry-flights"));
+        System.out.printf("Services completed:  %d%n", values.getValue("services-completed"));
+        System.out.printf("At end:              %d in flight, %d undergoing service, %d waiting for a bay%n",
+                values.getValue("in-flight"), values.getValue("undergoing-service"), values.getValue("service-queue"));
+        System.out.println("Request -> plane allocated: " + values.getLatency("allocation").summary());
+        System.out.println("Waiting in backlog:         " + values.getLatency("backlog-wait").summary());
+        System.out.println("Departed -> landed:         " + values.getLatency("flight").summary());
+        System.out.println("Request -> landed:          " + values.getLatency("trip").summary());
+        System.out.println("Landed -> service start:    " + values.getLatency("service-wait").summary());
+        System.out.println("Landed -> serviced:         " + values.getLatency("service").summary());
+        System.out.println("Request -> serviced:        " + values.getLatency("end-to-end").summary());
+        printBusiestAirports(simulation.getAirports(), simulation.now());
+        System.out.printf("Fingerprint:         %016x%n", simulation.getFingerprint());
+    }
+
+    /**
+     * Runs a sharded simulation as run() does, then prints its counters, added up over the shards.
+     */
+    public void runSharded(ShardCoordinator coordinator, int seconds, int requests)
+    {
+        long startTime = System.nanoTime();
+        long deadline = (seconds >= 0) ? startTime + seconds * 1_000_000_000L : Long.MAX_VALUE;
+        ShardLayout layout = coordinator.getLayout();
+
+        try {
+            coordinator.start();
+        } catch (IOException e) {
+            System.err.println("Cannot start shards: " + e.getMessage());
+            return;
+        }
+        System.out.printf("Started %d shards in %.1f ms%n", layout.getShardCount(), (System.nanoTime() - startTime) / 1e6);
+
+        double elapsed;
+        try {
+            while (coordinator.isRunning() && System.nanoTime() < deadline
+                    && (requests < 0 || coordinator.getValue("requests-dispatched") < requests)) {
+                Thread.sleep(POLL_MILLIS);
+                if (verbose && coordinator.getTicks() % 10 == 0) {
+                    System.out.println(coordinator.getStatusText());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            elapsed = (System.nanoTime() - startTime) / 1e9;
+            coordinator.stop();
+        }
+        if (coordinator.getFailure() != null) {
+            System.err.println("Sharded run failed: " + coordinator.getFailure().getMessage());
+            return;
+        }
+
+        long handedOff = coordinator.getValue("planes-handed-off");
+        System.out.printf("Elapsed:             %.1f s%n", elapsed);
+        System.out.printf("Shards:              %d (%d airports, %d ticks at %.1f/s)%n",
+                layout.getShardCount(), layout.getNumAirports(), coordinator.getTicks(), coordinator.getTicks() / elapsed);
+        System.out.printf("Requests received:   %d (%.1f/s)%n", coordinator.getValue("requests-received"), coordinator.getValue("requests-received") / elapsed);
+        System.out.printf("Requests dispatched: %d (%.1f/s)%n", coordinator.getValue("requests-dispatched"), coordinator.getValue("requests-dispatched") / elapsed);
+        System.out.printf("Invalid requests:    %d%n", coordinator.getValue("invalid-requests"));
+        System.out.printf("Requests served:     %d (%d waited for a plane, %d dropped, %d still waiting)%n",
+                coordinator.getValue("requests-served"), coordinator.getValue("requests-deferred"),
+                coordinator.getValue("requests-dropped"), coordinator.getValue("backlog"));
+        System.out.printf("Handed off:          %d planes to other shards (%d received; %d lost, between shards at the end)%n",
+                handedOff, coordinator.getValue("planes-received"), coordinator.getTransfersLost());
+        System.out.printf("Trips completed:     %d (%.1f/s; %d empty repositioning legs)%n",
+                coordinator.getValue("trips-completed"), coordinator.getValue("trips-completed") / elapsed, coordinator.getValue("ferry-flights"));
+        System.out.printf("Services completed:  %d (%.1f/s)%n", coordinator.getValue("services-completed"), coordinator.getValue("services-completed") / elapsed);
+        System.out.printf("Conflicts:           %d (within shards only)%n", coordinator.getValue("conflicts"));
+        System.out.println("Tick, all shards:           " + coordinator.getTickLatency().summary());
+        for (int shard = 0; shard < layout.getShardCount(); shard++) {
+            int first = layout.getFirstAirportId(shard);
+            System.out.printf("Shard %-3d airports %d-%d: %d in flight, %d undergoing service, %d trips completed%n",
+                    shard, first, first + layout.getAirportCount(shard) - 1, coordinator.getValue(shard, "in-flight"),
+                    coordinator.getValue(shard, "undergoing-service"), coordinator.getValue(shard, "trips-completed"));
+        }
+    }
+
+    /**
+     * Prints the service bay utilisation and waits of the airports whose bays were busiest.
+     */
+    private static void printBusiestAirports(List<Airport> airports, long now)
+    {
+        List<Airport> busiest = new ArrayList<>(airports);
+        busiest.sort(Comparator.comparingDouble((Airport airport) -> airport.getServiceBays().getUtilisation(now)).reversed());
+        for (Airport airport : busiest.subList(0, Math.min(BUSIEST_AIRPORTS, busiest.size()))) {
+            ServiceBays bays = airport.getServiceBays();
+            System.out.printf("Airport %-5d bays:   %.0f%% busy (%d bays), %d waiting; wait to start mean %.1fms max %.1fms (n=%d)%n",
+                    airport.getId(), bays.getUtilisation(now) * 100.0, bays.getCapacity(), bays.getQueueLength(),
+                    bays.getMeanWaitNanos() / 1e6, bays.getMaxWaitNanos() / 1e6, bays.getWaitCount());
+        }
+    }
+
+    /**
+     * Plays back the journal in the given directory and prints what it contained.
+     */
+    public void replay(Path directory, double speed)
+    {
+        ReplayModel model;
+        try {
+            model = new ReplayModel(this, new JournalReplayer(directory), speed);
+        } catch (IOException e) {
+            System.err.println("Cannot read journal: " + e);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        model.start();
+        try {
+            while (!model.isFinished()) {
+                Thread.sleep(POLL_MILLIS);
+                printEvents(model.getEventLog());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            model.stop();
+        }
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+        printEvents(model.getEventLog());
+
+        System.out.printf("Replayed:            %d records in %.2f s (%.0f/s)%n",
+                model.getRecordsReplayed(), elapsed, model.getRecordsReplayed() / elapsed);
+        System.out.printf("Journal covers:      %.1f s (%.1fx real time)%n",
+                model.getJournalSeconds(), model.getJournalSeconds() / elapsed);
+        System.out.printf("Requests dispatched: %d%n", model.getRequestsDispatched());
+        System.out.printf("Invalid requests:    %d%n", model.getInvalidRequests());
+        System.out.printf("Requests waiting:    %d waited for a plane, %d dropped, %d still waiting%n",
+                model.getRequestsDeferred(), model.getRequestsDropped(), model.getBacklogSize());
+        System.out.printf("Trips completed:     %d%n", model.getCompletedTrips());
+        System.out.printf("Services completed:  %d%n", model.getServicesCompleted());
+        System.out.printf("Conflicts:           %d%n", model.getConflicts());
+        System.out.printf("At end:              %d in flight, %d undergoing service%n",
+                model.getInFlight(), model.getUndergoingService());
+    }
+
+    /**
+     * Prints (in verbose mode) or discards everything currently in the event log.
+     */
+    private void printEvents(EventLog eventLog)
+    {
+        EventLog.Reader reader = verbose
+                ? (type, a, b, c, text) -> System.out.println(type.format(a, b, c, text))
+                : (type, a, b, c, text) -> { };
+        int drained;
+        do {
+            drained = eventLog.drain(reader, EventLog.DEFAULT_CAPACITY);
+        } while (drained > 0);
+    }
+
+    @Override
+    public void statisticsChanged()
+    {
+        // Statistics are only reported at the end of a headless run.
+    }
+
+    @Override
+    public void tickCompleted(long tick)
+    {
+        // Nothing to render.
+    }
+}
@@ -0,0 +1,16 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * Where flight requests come from.
+ */
+public enum IngestionMode
+{
+    /** One saed_flight_requests process, and one reader thread, per airport (the original). */
+    PROCESS_PER_AIRPORT,
+
+    /** A single FlightRequestMux process for all airports, with one reader thread. */
+    MULTIPLEXED_PROCESS,
+
+    /** A FlightRequestGenerator running on one thread inside the simulation's own JVM. */
+    IN_PROCESS
+}
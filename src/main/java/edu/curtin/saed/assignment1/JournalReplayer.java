@@ -0,0 +1,120 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reads back a journal written by EventJournal, segment by segment, passing each record to a
+ * Handler. Records can be replayed as fast as possible, or paced to their original timestamps
+ * scaled by a speed-up factor.
+ */
+public class JournalReplayer
+{
+    /** Pacing is skipped unless we are at least this far ahead of the scaled timestamps. */
+    private static final long MIN_SLEEP_NANOS = 1_000_000;
+
+    /**
+     * Receives journal records, in the order they were written.
+     */
+    public interface Handler
+    {
+        void record(EventJournal.RecordType type, long timeNanos, int a, int b, int c, float x, float y);
+    }
+
+    private final List<Path> segments;
+
+    public JournalReplayer(Path directory) throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(EventJournal.SEGMENT_PREFIX) && name.endsWith(EventJournal.SEGMENT_SUFFIX);
+            }).forEach(files::add);
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No journal segments in " + directory);
+        }
+        Collections.sort(files);  // Segment names are zero-padded, so this is write order.
+        this.segments = files;
+    }
+
+    public int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    /**
+     * Passes only the AIRPORT and PLANE records at the start of the journal to the handler, so
+     * that a model can be set up before the replay proper begins.
+     */
+    public void readLayout(Handler handler) throws IOException
+    {
+        try {
+            read(handler, 0.0, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // Not reachable without pacing, but just in case.
+        }
+    }
+
+    /**
+     * Passes every record to the handler. With a speed of (say) 10, records are delivered at ten
+     * times the rate they were written; with 0 or less, they are delivered as fast as possible.
+     *
+     * Returns the number of records replayed.
+     */
+    public long replay(Handler handler, double speed) throws IOException, InterruptedException
+    {
+        return read(handler, speed, false);
+    }
+
+    private long read(Handler handler, double speed, boolean layoutOnly) throws IOException, InterruptedException
+    {
+        long count = 0;
+        long startNanos = System.nanoTime();
+
+        for (Path file : segments) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            while (buffer.remaining() >= EventJournal.RECORD_SIZE) {
+                long timeNanos = buffer.getLong();
+                EventJournal.RecordType type = EventJournal.RecordType.fromCode(buffer.getInt());
+                if (type == null) {
+                    return count;  // The unwritten tail of the last segment.
+                }
+                int a = buffer.getInt();
+                int b = buffer.getInt();
+                int c = buffer.getInt();
+                float x = buffer.getFloat();
+                float y = buffer.getFloat();
+
+                if (layoutOnly && type != EventJournal.RecordType.AIRPORT && type != EventJournal.RecordType.PLANE) {
+                    return count;
+                }
+                if (speed > 0.0) {
+                    long wait = startNanos + (long) (timeNanos / speed) - System.nanoTime();
+                    if (wait >= MIN_SLEEP_NANOS) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                handler.record(type, timeNanos, a, b, c, x, y);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,169 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram (in nanoseconds) with log-linear buckets, in the style of HdrHistogram: each
+ * power of two is split into SUB_BUCKETS equal buckets, so any recorded value is known to within
+ * about 1 / SUB_BUCKETS (3%) of itself, over the whole range of a long, in a fixed 15 KB.
+ *
+ * Recording is lock-free and allocation-free (an increment of one bucket, plus a striped count
+ * and sum), so it can be left on in the hot paths. Percentiles are computed from snapshots, which
+ * can also be subtracted from each other to describe just the interval between them.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * Records one latency. Negative values (from clock oddities) are recorded as zero.
+     */
+    public void record(long nanos)
+    {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(value));
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public Snapshot snapshot()
+    {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, total.sum(), max.get());
+    }
+
+    /**
+     * Returns a one-line summary in milliseconds: count, mean, p50, p90, p99, p99.9 and max.
+     */
+    public String summary()
+    {
+        return snapshot().summary();
+    }
+
+    /* default */ static int bucketOf(long value)
+    {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);  // In [SUB_BUCKETS, 2 * SUB_BUCKETS).
+        return (shift + 1) * SUB_BUCKETS + top - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the largest value that falls in the given bucket.
+     */
+    /* default */ static long highestValueIn(int bucket)
+    {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long top = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * The state of a histogram at one moment (or the difference between two such moments).
+     */
+    public static final class Snapshot
+    {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(long[] counts, long total, long max)
+        {
+            long sum = 0;
+            for (long bucketCount : counts) {
+                sum += bucketCount;
+            }
+            this.counts = counts;
+            this.count = sum;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Returns what was recorded after the given earlier snapshot of the same histogram. The
+         * maximum is then only known to within its bucket.
+         */
+        public Snapshot since(Snapshot earlier)
+        {
+            long[] difference = new long[BUCKETS];
+            int highest = -1;
+            for (int i = 0; i < BUCKETS; i++) {
+                difference[i] = counts[i] - earlier.counts[i];
+                if (difference[i] > 0) {
+                    highest = i;
+                }
+            }
+            long intervalMax = (highest < 0) ? 0 : Math.min(highestValueIn(highest), max);
+            return new Snapshot(difference, total - earlier.total, intervalMax);
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        public double getMeanNanos()
+        {
+            return (count == 0) ? 0.0 : (double) total / count;
+        }
+
+        public long getMaxNanos()
+        {
+            return max;
+        }
+
+        /**
+         * Returns the value (to within its bucket) that the given fraction of recorded values are
+         * less than or equal to, or 0 if nothing was recorded.
+         */
+        public long getPercentileNanos(double fraction)
+        {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+
+        public String summary()
+        {
+            if (count == 0) {
+                return "n=0";
+            }
+            return String.format("n=%d mean=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms",
+                    count,
+                    getMeanNanos() / 1e6,
+                    getPercentileNanos(0.50) / 1e6,
+                    getPercentileNanos(0.90) / 1e6,
+                    getPercentileNanos(0.99) / 1e6,
+                    getPercentileNanos(0.999) / 1e6,
+                    max / 1e6);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.Arrays;
+import javafx.application.Application;
+
+/**
+ * Application entry point. This must not itself extend Application; otherwise the Java launcher
+ * starts the JavaFX toolkit before main() runs, which fails on machines without a display.
+ *
+ * With "--headless" as the first argument, the remaining arguments go to HeadlessRunner.
+ * Otherwise, the GUI is started (with "--replay DIR [--speed X]", to play back a journal, or with
+ * "--scenario FILE", to run a Scenario).
+ */
+public class Launcher
+{
+    public static void main(String[] args)
+    {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HeadlessRunner.main(Arrays.copyOfRange(args, 1, args.length));
+        } else {
+            Application.launch(App.class, args);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms, which can be read all together as a Snapshot and
+ * written out as text or CSV (see MetricsReporter).
+ *
+ * Counters are striped (LongAdder), so the threads that update them (the dispatcher, the tick
+ * thread, the service threads) don't contend on one cache line. Gauges are read only when a
+ * snapshot is taken. Metrics are registered up front, and are reported in registration order.
+ */
+public class MetricsRegistry
+{
+    /**
+     * A striped counter. Updates are cheap and never block; reads add up the stripes.
+     */
+    public static final class Counter
+    {
+        private final LongAdder value = new LongAdder();
+
+        public void increment()
+        {
+            value.increment();
+        }
+
+        public void decrement()
+        {
+            value.decrement();
+        }
+
+        public void add(long amount)
+        {
+            value.add(amount);
+        }
+
+        public long get()
+        {
+            return value.sum();
+        }
+
+        /**
+         * Sets the counter's value. Not atomic with respect to concurrent updates, so only for
+         * (re)initialising it, e.g. when restoring a snapshot.
+         */
+        public void set(long newValue)
+        {
+            value.reset();
+            value.add(newValue);
+        }
+    }
+
+    private final Object lock = new Object();
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Returns the counter with the given name, creating it if need be.
+     */
+    public Counter counter(String name)
+    {
+        synchronized (lock) {
+            return counters.computeIfAbsent(name, key -> new Counter());
+        }
+    }
+
+    /**
+     * Registers (or replaces) a gauge, whose value is read from the given supplier whenever a
+     * snapshot is taken.
+     */
+    public void gauge(String name, LongSupplier value)
+    {
+        synchronized (lock) {
+            gauges.put(name, value);
+        }
+    }
+
+    /**
+     * Returns the latency histogram with the given name, creating it if need be.
+     */
+    public LatencyHistogram histogram(String name)
+    {
+        synchronized (lock) {
+            return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+        }
+    }
+
+    public Snapshot snapshot()
+    {
+        synchronized (lock) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                values.put(entry.getKey(), entry.getValue().get());
+            }
+            for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+                values.put(entry.getKey(), entry.getValue().getAsLong());
+            }
+            Map<String, LatencyHistogram.Snapshot> latencies = new LinkedHashMap<>();
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                latencies.put(entry.getKey(), entry.getValue().snapshot());
+            }
+            return new Snapshot(System.nanoTime() - startNanos, values, latencies);
+        }
+    }
+
+    /**
+     * The values of every metric at one moment.
+     */
+    public static final class Snapshot
+    {
+        private final long elapsedNanos;
+        private final Map<String, Long> values;
+        private final Map<String, LatencyHistogram.Snapshot> latencies;
+
+        private Snapshot(long elapsedNanos, Map<String, Long> values, Map<String, LatencyHistogram.Snapshot> latencies)
+        {
+            this.elapsedNanos = elapsedNanos;
+            this.values = values;
+            this.latencies = latencies;
+        }
+
+        public double getElapsedSeconds()
+        {
+            return elapsedNanos / 1e9;
+        }
+
+        /**
+         * Returns the value of the given counter or gauge, or 0 if there is none.
+         */
+        public long getValue(String name)
+        {
+            return values.getOrDefault(name, 0L);
+        }
+
+        public LatencyHistogram.Snapshot getLatency(String name)
+        {
+            return latencies.get(name);
+        }
+
+        public Map<String, Long> getValues()
+        {
+            return Collections.unmodifiableMap(values);
+        }
+
+        /**
+         * Returns the latencies recorded since the given earlier snapshot (or since the start, if
+         * it is null).
+         */
+        private LatencyHistogram.Snapshot latencySince(String name, Snapshot earlier)
+        {
+            LatencyHistogram.Snapshot latency = latencies.get(name);
+            if (earlier == null || !earlier.latencies.containsKey(name)) {
+                return latency;
+            }
+            return latency.since(earlier.latencies.get(name));
+        }
+
+        /**
+         * Formats this snapshot as a block of text: one line for the counters and gauges, and one
+         * per histogram, covering the interval since the given earlier snapshot (if not null).
+         */
+        public String toText(Snapshot earlier)
+        {
+            StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "[%8.1f s]", getElapsedSeconds()));
+            for (Map.Entry<String, Long> entry : values.entrySet()) {
+                text.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            text.append(System.lineSeparator());
+            for (String name : latencies.keySet()) {
+                text.append(String.format(Locale.ROOT, "  %-16s %s%n", name, latencySince(name, earlier).summary()));
+            }
+            return text.toString();
+        }
+
+        /**
+         * Returns the CSV header matching toCsv(): elapsed time, then each counter and gauge, then
+         * the count, p50, p99 and maximum (in ms) of each histogram.
+         */
+        public String csvHeader()
+        {
+            List<String> columns = new ArrayList<>();
+            columns.add("elapsed_s");
+            columns.addAll(values.keySet());
+            for (String name : latencies.keySet()) {
+                columns.add(name + "_count");
+                columns.add(name + "_p50_ms");
+                columns.add(name + "_p99_ms");
+                columns.add(name + "_max_ms");
+            }
+            return String.join(",", columns);
+        }
+
+        /**
+         * Formats this snapshot as one CSV row, with histograms covering the interval since the
+         * given earlier snapshot (if not null).
+         */
+        public String toCsv(Snapshot earlier)
+        {
+            List<String> columns = new ArrayList<>();
+            columns.add(String.format(Locale.ROOT, "%.3f", getElapsedSeconds()));
+            for (Long value : values.values()) {
+                columns.add(value.toString());
+            }
+            for (String name : latencies.keySet()) {
+                LatencyHistogram.Snapshot latency = latencySince(name, earlier);
+                columns.add(Long.toString(latency.getCount()));
+                columns.add(String.format(Locale.ROOT, "%.3f", latency.getPercentileNanos(0.50) / 1e6));
+                columns.add(String.format(Locale.ROOT, "%.3f", latency.getPercentileNanos(0.99) / 1e6));
+                columns.add(String.format(Locale.ROOT, "%.3f", latency.getMaxNanos() / 1e6));
+            }
+            return String.join(",", columns);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes a snapshot of a MetricsRegistry to a stream, as text or CSV. Latency
+ * percentiles in each report cover just the interval since the previous one, so that changes
+ * under load show up rather than being averaged away.
+ */
+public class MetricsReporter
+{
+    /**
+     * How each report is written.
+     */
+    public enum Format
+    {
+        /** A line of counters and gauges, then a line per histogram. */
+        TEXT,
+
+        /** One CSV row per report, after a header row. */
+        CSV
+    }
+
+    private final MetricsRegistry registry;
+    private final PrintStream out;
+    private final Format format;
+    private final Object lock = new Object();
+    private ScheduledExecutorService scheduler;
+    private MetricsRegistry.Snapshot previous = null;
+
+    public MetricsReporter(MetricsRegistry registry, PrintStream out, Format format)
+    {
+        this.registry = registry;
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Starts reporting every 'periodMillis' milliseconds, on a daemon thread.
+     */
+    public void start(long periodMillis)
+    {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> report(), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops periodic reporting, and writes one last report covering whatever happened since the
+     * previous one.
+     */
+    public void stop()
+    {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        report();
+        out.flush();
+    }
+
+    /**
+     * Writes one report now.
+     */
+    public void report()
+    {
+        synchronized (lock) {
+            MetricsRegistry.Snapshot snapshot = registry.snapshot();
+            if (format == Format.CSV) {
+                if (previous == null) {
+                    out.println(snapshot.csvHeader());
+                }
+                out.println(snapshot.toCsv(previous));
+            } else {
+                out.print(snapshot.toText(previous));
+            }
+            previous = snapshot;
+        }
+    }
+}
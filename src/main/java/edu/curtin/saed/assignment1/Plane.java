@@ -0,0 +1,116 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * A handle on one plane's state in a FleetStore. Handles are created by the store, one per plane,
+ * and hold nothing but the plane's index, so they are cheap to pass around and keep in airport
+ * pools and service requests.
+ */
+public final class Plane
+{
+    private final FleetStore fleet;
+    private final int index;
+
+    /* default */ Plane(FleetStore fleet, int index)
+    {
+        this.fleet = fleet;
+        this.index = index;
+    }
+
+    public int getId()
+    {
+        return index + 1;
+    }
+
+    /**
+     * Returns this plane's index in its FleetStore (i.e. its ID - 1).
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Returns the airport the plane is at, or most recently departed from.
+     */
+    public Airport getAirport()
+    {
+        return fleet.getAirport(index);
+    }
+
+    public void setAirport(Airport airport)
+    {
+        fleet.setAirport(index, airport);
+    }
+
+    /**
+     * Returns the destination of the plane's current (or most recent) leg.
+     */
+    public Airport getDestination()
+    {
+        return fleet.getDestination(index);
+    }
+
+    /**
+     * The System.nanoTime() at which the flight request for the current leg was made.
+     */
+    public long getRequestedNanos()
+    {
+        return fleet.getRequestedNanos(index);
+    }
+
+    /**
+     * Returns whether the plane's current (or most recent) leg is an empty repositioning flight,
+     * rather than one carrying a flight request.
+     */
+    public boolean isEmptyLeg()
+    {
+        return fleet.isEmptyLeg(index);
+    }
+
+    /**
+     * The System.nanoTime() at which the plane departed on its current leg.
+     */
+    public long getDepartedNanos()
+    {
+        return fleet.getDepartedNanos(index);
+    }
+
+    public double getX()
+    {
+        return fleet.getX(index);
+    }
+
+    public double getY()
+    {
+        return fleet.getY(index);
+    }
+
+    public void setPosition(double x, double y)
+    {
+        fleet.setPosition(index, x, y);
+    }
+
+    public boolean isAvailable()
+    {
+        return fleet.getStatus(index) == FleetStore.PARKED;
+    }
+
+    public void setInFlight(boolean inFlight)
+    {
+        fleet.setStatus(index, inFlight ? FleetStore.IN_FLIGHT : FleetStore.PARKED);
+    }
+
+    /**
+     * Returns whether the plane has landed and is waiting for, or undergoing, service (and so is
+     * not yet available).
+     */
+    public boolean isServicing()
+    {
+        return fleet.getStatus(index) == FleetStore.SERVICING;
+    }
+
+    public void setServicing()
+    {
+        fleet.setStatus(index, FleetStore.SERVICING);
+    }
+}
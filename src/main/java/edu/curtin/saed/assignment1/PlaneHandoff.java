@@ -0,0 +1,15 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * Takes over a plane, just allocated to a flight request, whose destination is owned by another
+ * shard of a sharded simulation (see ShardWorker). The plane has been marked as remote, and the
+ * destination's shard flies it from here on.
+ */
+public interface PlaneHandoff
+{
+    /**
+     * Called on the dispatcher thread, or the tick thread (when a landing plane is matched
+     * straight away to a waiting request).
+     */
+    void handOff(Plane plane, Airport origin, Airport destination, long requestedNanos);
+}
@@ -0,0 +1,77 @@
+package edu.curtin.saed.assignment1;
+
+import edu.curtin.saed.assignment1.comms.PlaneService;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Entry point for a long-lived plane service worker JVM (see WorkerProcessPlaneServicer). Each
+ * line of standard input holds a tag, an airport ID and a plane ID. For each one, the worker runs
+ * the comms PlaneService on one of a fixed number of threads (given as the only argument; the most
+ * services its parent will send at once), and writes the tag and PlaneService's one-line result to
+ * standard output when it finishes. Any more services than that wait for a thread. Results are
+ * therefore not necessarily in the order of the requests. The worker exits at the end of its input,
+ * abandoning any services still in progress or waiting.
+ */
+public class PlaneServiceWorker
+{
+    public static void main(String[] args) throws IOException
+    {
+        int threads = (args.length < 1) ? 1 : Integer.parseInt(args[0]);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "plane-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // PlaneService writes its result to System.out, so give each service thread its own.
+        PrintStream results = System.out;
+        ThreadLocal<ByteArrayOutputStream> captured = ThreadLocal.withInitial(ByteArrayOutputStream::new);
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b)
+            {
+                captured.get().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len)
+            {
+                captured.get().write(b, off, len);
+            }
+        }, true, StandardCharsets.UTF_8));
+
+        try (BufferedReader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                String[] fields = line.trim().split(" ", 2);
+                executor.execute(() -> service(fields, captured.get(), results));
+            }
+        }
+    }
+
+    private static void service(String[] fields, ByteArrayOutputStream output, PrintStream results)
+    {
+        output.reset();  // Left over from this thread's last service, if it was cut short.
+        try {
+            PlaneService.main((fields.length < 2) ? new String[0] : fields[1].split(" "));
+        } catch (IllegalStateException e) {
+            // PlaneService adds and removes a shutdown hook, which fails if we are being shut
+            // down mid-service (by WorkerProcessPlaneServicer.close()). Nobody is waiting for the
+            // result any more.
+            return;
+        }
+        String message = output.toString(StandardCharsets.UTF_8).trim();
+        synchronized (results) {
+            results.println(fields[0] + " " + message);
+            results.flush();
+        }
+    }
+}
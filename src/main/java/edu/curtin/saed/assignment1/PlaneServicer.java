@@ -0,0 +1,22 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+
+/**
+ * Performs plane services, each call blocking until its service is complete. An instance may be
+ * shared by several ServiceWorkerPool threads, and must then perform their services at the same
+ * time.
+ */
+public interface PlaneServicer
+{
+    /**
+     * Services the plane, and returns the message reported by the plane service.
+     */
+    String service(int airportId, int planeId) throws IOException, InterruptedException;
+
+    /**
+     * Releases any long-lived resources. May be called from another thread to abort the services
+     * in progress.
+     */
+    void close();
+}
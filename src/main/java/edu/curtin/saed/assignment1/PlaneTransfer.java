@@ -0,0 +1,67 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A plane being handed from one shard to another: it has been allocated to a flight request at
+ * 'origin', and the shard that owns 'destination' is to fly it there. Plane indexes and airport
+ * IDs are the same in every shard. The request's time is sent as an age, since each shard has its
+ * own System.nanoTime() origin.
+ */
+public class PlaneTransfer
+{
+    private final int planeIndex;
+    private final int originId;
+    private final int destinationId;
+    private final long requestedNanos;
+
+    public PlaneTransfer(int planeIndex, int originId, int destinationId, long requestedNanos)
+    {
+        this.planeIndex = planeIndex;
+        this.originId = originId;
+        this.destinationId = destinationId;
+        this.requestedNanos = requestedNanos;
+    }
+
+    public int getPlaneIndex()
+    {
+        return planeIndex;
+    }
+
+    public int getOriginId()
+    {
+        return originId;
+    }
+
+    public int getDestinationId()
+    {
+        return destinationId;
+    }
+
+    /**
+     * The System.nanoTime(), in the receiving JVM, at which the flight was requested.
+     */
+    public long getRequestedNanos()
+    {
+        return requestedNanos;
+    }
+
+    public void write(DataOutput out) throws IOException
+    {
+        out.writeInt(planeIndex);
+        out.writeInt(originId);
+        out.writeInt(destinationId);
+        out.writeLong(System.nanoTime() - requestedNanos);
+    }
+
+    public static PlaneTransfer read(DataInput in) throws IOException
+    {
+        int planeIndex = in.readInt();
+        int originId = in.readInt();
+        int destinationId = in.readInt();
+        long age = in.readLong();
+        return new PlaneTransfer(planeIndex, originId, destinationId, System.nanoTime() - age);
+    }
+}
@@ -0,0 +1,98 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands plane position snapshots from the simulation to the GUI without locking and without
+ * queueing one event per update.
+ *
+ * The writer (the simulation tick thread) fills its own back buffer and publishes it by swapping
+ * it into a shared "ready" slot. The reader (the JavaFX thread) swaps the ready slot with its own
+ * front buffer once per frame, but only if something newer has been published. Intermediate
+ * snapshots that the reader never sees are simply overwritten, so the cost of rendering depends on
+ * the frame rate rather than on how often the simulation publishes.
+ *
+ * Only one thread may write, and only one thread may read.
+ */
+public class RenderBuffer
+{
+    private final AtomicReference<Snapshot> ready;
+    private Snapshot back;
+    private Snapshot front;
+    private long version = 0;
+
+    public RenderBuffer(int size)
+    {
+        back = new Snapshot(size);
+        front = new Snapshot(size);
+        ready = new AtomicReference<>(new Snapshot(size));
+    }
+
+    /**
+     * Returns the writer's buffer, to be filled in before calling publish().
+     */
+    public Snapshot getBackBuffer()
+    {
+        return back;
+    }
+
+    /**
+     * Makes the back buffer visible to the reader, and takes a new back buffer.
+     */
+    public void publish()
+    {
+        version++;
+        back.version = version;
+        back = ready.getAndSet(back);
+    }
+
+    /**
+     * Returns the latest published snapshot, or null if nothing has been published since the last
+     * call. The returned snapshot remains valid until the next call.
+     */
+    public Snapshot acquireLatest()
+    {
+        if (ready.get().version <= front.version) {
+            return null;
+        }
+        front = ready.getAndSet(front);
+        return front;
+    }
+
+    /**
+     * Plane positions, indexed in the same order as the simulation's plane list.
+     */
+    public static class Snapshot
+    {
+        private final double[] x;
+        private final double[] y;
+        private long version = 0;
+
+        public Snapshot(int size)
+        {
+            x = new double[size];
+            y = new double[size];
+        }
+
+        public int size()
+        {
+            return x.length;
+        }
+
+        public double getX(int i)
+        {
+            return x[i];
+        }
+
+        public double getY(int i)
+        {
+            return y[i];
+        }
+
+        public void setPosition(int i, double newX, double newY)
+        {
+            x[i] = newX;
+            y[i] = newY;
+        }
+    }
+}
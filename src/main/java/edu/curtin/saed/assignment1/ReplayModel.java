@@ -0,0 +1,312 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays back a journal recorded by EventJournal, reconstructing plane positions and statistics
+ * and notifying a SimulationListener just as a live Simulation would, but without any flight
+ * request generators or plane services. Playback runs on its own thread, at a multiple of the
+ * original speed (or flat out).
+ */
+public class ReplayModel implements TrafficModel, JournalReplayer.Handler
+{
+    public static final double DEFAULT_SPEED = 10.0;
+
+    private final SimulationListener listener;
+    private final JournalReplayer replayer;
+    private final double speed;
+    private final EventLog eventLog = new EventLog(EventLog.DEFAULT_CAPACITY);
+    private final List<Airport> airports = new ArrayList<>();
+    private final List<Plane> planes = new ArrayList<>();
+    private AirportRegistry airportRegistry;  // Created once all the airports have been read.
+    private FleetStore fleet;
+    private boolean layoutRead = false;
+    private Thread thread;
+    private volatile boolean finished = false;
+    private volatile long recordsReplayed = 0;
+    private volatile long journalNanos = 0;
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger undergoingService = new AtomicInteger(0);
+    private final AtomicInteger completedTrips = new AtomicInteger(0);
+    private final AtomicInteger requestsDispatched = new AtomicInteger(0);
+    private final AtomicInteger invalidRequests = new AtomicInteger(0);
+    private final AtomicInteger requestsDeferred = new AtomicInteger(0);
+    private final AtomicInteger requestsDropped = new AtomicInteger(0);
+    private final AtomicInteger backlog = new AtomicInteger(0);  // Requests waiting for a plane.
+    private final AtomicInteger servicesCompleted = new AtomicInteger(0);
+    private final AtomicInteger conflicts = new AtomicInteger(0);
+
+    /**
+     * Reads the airport and plane layout from the journal straight away, so that it can be
+     * displayed before playback starts.
+     */
+    public ReplayModel(SimulationListener listener, JournalReplayer replayer, double speed) throws IOException
+    {
+        this.listener = listener;
+        this.replayer = replayer;
+        this.speed = speed;
+        replayer.readLayout(this);
+        if (fleet == null) {
+            createFleet();  // A journal with no planes.
+        }
+        layoutRead = true;
+        recordsReplayed = 0;
+    }
+
+    @Override
+    public List<Airport> getAirports()
+    {
+        return Collections.unmodifiableList(airports);
+    }
+
+    @Override
+    public List<Plane> getPlanes()
+    {
+        return Collections.unmodifiableList(planes);
+    }
+
+    @Override
+    public EventLog getEventLog()
+    {
+        return eventLog;
+    }
+
+    @Override
+    public void start()
+    {
+        thread = new Thread(this::run, "journal-replay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop()
+    {
+        if (thread != null) {
+            thread.interrupt();
+            awaitCompletion();
+        }
+    }
+
+    /**
+     * Waits for playback to finish (or be stopped).
+     */
+    public void awaitCompletion()
+    {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run()
+    {
+        try {
+            replayer.replay(this, speed);
+        } catch (IOException e) {
+            eventLog.log(EventType.ERROR, "replaying journal: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finished = true;
+        eventLog.log(EventType.REPLAY_FINISHED, (int) recordsReplayed, 0, 0);
+        listener.statisticsChanged();
+    }
+
+    @Override
+    public void record(EventJournal.RecordType type, long timeNanos, int a, int b, int c, float x, float y)
+    {
+        recordsReplayed++;
+        journalNanos = timeNanos;
+
+        switch (type) {
+            case AIRPORT:
+                if (!layoutRead) {
+                    airports.add(new Airport(a, (int) x, (int) y));
+                }
+                break;
+            case PLANE:
+                if (!layoutRead) {
+                    if (fleet == null) {
+                        createFleet();  // All the airports come first.
+                    }
+                    Airport home = airportRegistry.get(b);
+                    Plane plane = fleet.add(home, x, y);
+                    planes.add(plane);
+                    home.releasePlane(plane);
+                }
+                break;
+            case FLIGHT_REQUESTED:
+                requestsDispatched.incrementAndGet();
+                eventLog.log(EventType.FLIGHT_REQUESTED, a, b, 0);
+                break;
+            case INVALID_REQUEST:
+                invalidRequests.incrementAndGet();
+                eventLog.log(EventType.INVALID_REQUEST, a, b, 0);
+                break;
+            case REQUEST_DEFERRED:
+                requestsDeferred.incrementAndGet();
+                backlog.incrementAndGet();
+                eventLog.log(EventType.REQUEST_DEFERRED, a, b, 0);
+                break;
+            case REQUEST_DROPPED:
+                requestsDropped.incrementAndGet();
+                eventLog.log(EventType.REQUEST_DROPPED, a, b, 0);
+                break;
+            case BACKLOG_MATCHED:
+                backlog.decrementAndGet();  // Its departure follows, as a PLANE_ALLOCATED record.
+                break;
+            case PLANE_ALLOCATED:
+                departed(planes.get(a - 1), false);
+                eventLog.log(EventType.PLANE_DEPARTED, a, b, c);
+                break;
+            case FERRY_DEPARTED:
+                departed(planes.get(a - 1), true);
+                eventLog.log(EventType.FERRY_DEPARTED, a, b, c);
+                break;
+            case PLANE_STEPPED:
+                planes.get(a - 1).setPosition(x, y);
+                break;
+            case PLANE_LANDED:
+                landed(planes.get(a - 1), airportRegistry.get(b), x, y);
+                break;
+            case SERVICE_STARTED:
+                undergoingService.incrementAndGet();
+                eventLog.log(EventType.SERVICE_STARTED, a, b, 0);
+                listener.statisticsChanged();
+                break;
+            case SERVICE_COMPLETED:
+                undergoingService.decrementAndGet();
+                servicesCompleted.incrementAndGet();
+                eventLog.log(EventType.SERVICE_COMPLETED, a, b, 0, "Plane " + a + " at Airport " + b);
+                listener.statisticsChanged();
+                break;
+            case SERVICE_FAILED:
+                undergoingService.decrementAndGet();
+                eventLog.log(EventType.SERVICE_FAILED, a, b, 0, "(recorded failure)");
+                listener.statisticsChanged();
+                break;
+            case CONFLICT:
+                conflicts.incrementAndGet();
+                eventLog.log(EventType.SEPARATION_CONFLICT, a, b, 0);
+                break;
+            case TICK:
+                listener.tickCompleted(a);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void createFleet()
+    {
+        airportRegistry = new AirportRegistry(airports);
+        fleet = new FleetStore(airportRegistry, 0);
+    }
+
+    private void departed(Plane plane, boolean emptyLeg)
+    {
+        inFlight.incrementAndGet();
+        fleet.setEmptyLeg(plane.getIndex(), emptyLeg);
+        plane.setInFlight(true);
+        listener.statisticsChanged();
+    }
+
+    private void landed(Plane plane, Airport airport, float x, float y)
+    {
+        inFlight.decrementAndGet();
+        if (!plane.isEmptyLeg()) {
+            completedTrips.incrementAndGet();
+        }
+        plane.setPosition(x, y);
+        plane.setAirport(airport);
+        plane.setInFlight(false);
+        eventLog.log(EventType.PLANE_LANDED, plane.getId(), airport.getId(), 0);
+        listener.statisticsChanged();
+    }
+
+    @Override
+    public String getStatusText()
+    {
+        return String.format("Replay %s %.1f s | In-Flight: %d | Service: %d | Completed Trips: %d",
+                finished ? "finished at" : "at", journalNanos / 1e9, inFlight.get(), undergoingService.get(), completedTrips.get());
+    }
+
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    public long getRecordsReplayed()
+    {
+        return recordsReplayed;
+    }
+
+    public double getJournalSeconds()
+    {
+        return journalNanos / 1e9;
+    }
+
+    public int getInFlight()
+    {
+        return inFlight.get();
+    }
+
+    public int getUndergoingService()
+    {
+        return undergoingService.get();
+    }
+
+    public int getCompletedTrips()
+    {
+        return completedTrips.get();
+    }
+
+    public int getRequestsDispatched()
+    {
+        return requestsDispatched.get();
+    }
+
+    public int getInvalidRequests()
+    {
+        return invalidRequests.get();
+    }
+
+    /**
+     * Returns the number of requests that had to wait for a plane, including any already waiting
+     * when the journal was started (e.g. restored from a snapshot).
+     */
+    public int getRequestsDeferred()
+    {
+        return requestsDeferred.get();
+    }
+
+    public int getRequestsDropped()
+    {
+        return requestsDropped.get();
+    }
+
+    /**
+     * Returns the number of requests waiting for a plane, as of the latest record replayed.
+     */
+    public int getBacklogSize()
+    {
+        return backlog.get();
+    }
+
+    public int getServicesCompleted()
+    {
+        return servicesCompleted.get();
+    }
+
+    public int getConflicts()
+    {
+        return conflicts.get();
+    }
+}
@@ -0,0 +1,359 @@
+package edu.curtin.saed.assignment1;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * The options of a headless run (see HeadlessRunner), parsed from its command-line arguments.
+ *
+ * The options that set up a Simulation (batching, ingestion, servicing, threads and rebalancing)
+ * are applied to one by configure(). A sharded run passes them on to each of its ShardWorkers
+ * (see getWorkerArguments()), which parse them here in the same way.
+ */
+public class RunOptions
+{
+    public static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: --headless [--seconds N | --requests N] [--airports N] [--planes N] [--shards N]",
+            "                  [--virtual [--seed N] [--speed X]] [--scenario FILE]",
+            "                  [--batch N] [--linger MS]",
+            "                  [--ingest per-airport|mux|in-process]",
+            "                  [--service-mode fork|worker] [--service-workers N] [--service-bays N]",
+            "                  [--tick-threads N]",
+            "                  [--threads platform|virtual] [--rebalance-every MS]",
+            "                  [--journal DIR] [--restore FILE] [--snapshot FILE]",
+            "                  [--metrics FILE|-] [--metrics-every S] [--metrics-format text|csv] [--verbose]",
+            "       --headless --replay DIR [--speed X] [--verbose]");
+
+    public static final int DEFAULT_SECONDS = 60;
+    public static final double DEFAULT_METRICS_SECONDS = 5.0;
+
+    private static final String[] INGESTION_NAMES = {"per-airport", "mux", "in-process"};
+    private static final IngestionMode[] INGESTION_MODES = {
+        IngestionMode.PROCESS_PER_AIRPORT, IngestionMode.MULTIPLEXED_PROCESS, IngestionMode.IN_PROCESS};
+    private static final String[] SERVICE_NAMES = {"fork", "worker"};
+    private static final ServiceMode[] SERVICE_MODES = {ServiceMode.FORK_PER_SERVICE, ServiceMode.WORKER_PROCESS};
+    private static final String[] THREAD_NAMES = {"platform", "virtual"};
+    private static final ExecutorMode[] THREAD_MODES = {ExecutorMode.PLATFORM_THREADS, ExecutorMode.VIRTUAL_THREADS};
+    private static final String[] FORMAT_NAMES = {"text", "csv"};
+    private static final MetricsReporter.Format[] FORMATS = {MetricsReporter.Format.TEXT, MetricsReporter.Format.CSV};
+
+    private int seconds = -1;
+    private int requests = -1;
+    private int numAirports = Simulation.NUM_AIRPORTS;
+    private int planesPerAirport = Simulation.PLANES_PER_AIRPORT;
+    private int shards = 0;
+    private boolean virtual = false;
+    private long seed = new Random().nextLong();
+    private double speed = 0.0;
+    private int maxBatchSize = BatchingDispatcher.DEFAULT_MAX_BATCH_SIZE;
+    private long lingerMillis = BatchingDispatcher.DEFAULT_LINGER_MILLIS;
+    private IngestionMode ingestionMode;  // Null to leave the simulation's own.
+    private ServiceMode serviceMode = ServiceMode.WORKER_PROCESS;
+    private int serviceWorkers = ServiceWorkerPool.DEFAULT_CONCURRENCY;
+    private int serviceBays = ServiceBays.DEFAULT_CAPACITY;
+    private int tickThreads = 0;  // One per processor (shared between shards).
+    private ExecutorMode executorMode = ExecutorMode.PLATFORM_THREADS;
+    private long rebalanceMillis = FleetRebalancer.DEFAULT_PERIOD_MILLIS;
+    private boolean verbose = false;
+    private Path scenarioFile;
+    private Path journalDirectory;
+    private Path replayDirectory;
+    private Path restoreFile;
+    private Path snapshotFile;
+    private String metricsFile;
+    private double metricsSeconds = DEFAULT_METRICS_SECONDS;
+    private MetricsReporter.Format metricsFormat = MetricsReporter.Format.TEXT;
+
+    private RunOptions()
+    {
+    }
+
+    /**
+     * Parses the given arguments (see USAGE). Throws IllegalArgumentException if one is unknown,
+     * or its value is missing or invalid.
+     */
+    public static RunOptions parse(String... args)
+    {
+        RunOptions options = new RunOptions();
+        Deque<String> queue = new ArrayDeque<>(Arrays.asList(args));
+        while (!queue.isEmpty()) {
+            String option = queue.pop();
+            try {
+                options.apply(option, queue);
+            } catch (NoSuchElementException e) {
+                throw new IllegalArgumentException("Missing value for " + option, e);
+            }
+        }
+        if (options.seconds < 0 && options.requests < 0) {
+            options.seconds = DEFAULT_SECONDS;
+        }
+        if (options.tickThreads <= 0) {
+            options.tickThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, options.shards));
+        }
+        return options;
+    }
+
+    private void apply(String option, Deque<String> values)
+    {
+        switch (option) {
+            case "--seconds":
+                seconds = Integer.parseInt(values.pop());
+                break;
+            case "--requests":
+                requests = Integer.parseInt(values.pop());
+                break;
+            case "--airports":
+                numAirports = Integer.parseInt(values.pop());
+                break;
+            case "--planes":
+                planesPerAirport = Integer.parseInt(values.pop());
+                break;
+            case "--shards":
+                shards = Integer.parseInt(values.pop());
+                break;
+            case "--virtual":
+                virtual = true;
+                break;
+            case "--seed":
+                seed = Long.parseLong(values.pop());
+                break;
+            case "--speed":
+                speed = Double.parseDouble(values.pop());
+                break;
+            case "--scenario":
+                scenarioFile = Paths.get(values.pop());
+                break;
+            case "--batch":
+                maxBatchSize = Integer.parseInt(values.pop());
+                break;
+            case "--linger":
+                lingerMillis = Long.parseLong(values.pop());
+                break;
+            case "--ingest":
+                ingestionMode = parseChoice("ingestion mode", values.pop(), INGESTION_NAMES, INGESTION_MODES);
+                break;
+            case "--service-mode":
+                serviceMode = parseChoice("service mode", values.pop(), SERVICE_NAMES, SERVICE_MODES);
+                break;
+            case "--service-workers":
+                serviceWorkers = Integer.parseInt(values.pop());
+                break;
+            case "--service-bays":
+                serviceBays = Integer.parseInt(values.pop());
+                break;
+            case "--tick-threads":
+                tickThreads = Integer.parseInt(values.pop());
+                break;
+            case "--threads":
+                executorMode = parseChoice("thread kind", values.pop(), THREAD_NAMES, THREAD_MODES);
+                break;
+            case "--rebalance-every":
+                rebalanceMillis = Long.parseLong(values.pop());
+                break;
+            case "--journal":
+                journalDirectory = Paths.get(values.pop());
+                break;
+            case "--replay":
+                replayDirectory = Paths.get(values.pop());
+                break;
+            case "--restore":
+                restoreFile = Paths.get(values.pop());
+                break;
+            case "--snapshot":
+                snapshotFile = Paths.get(values.pop());
+                break;
+            case "--metrics":
+                metricsFile = values.pop();
+                break;
+            case "--metrics-every":
+                metricsSeconds = Double.parseDouble(values.pop());
+                break;
+            case "--metrics-format":
+                metricsFormat = parseChoice("metrics format", values.pop(), FORMAT_NAMES, FORMATS);
+                break;
+            case "--verbose":
+                verbose = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + option);
+        }
+    }
+
+    private static <T> T parseChoice(String kind, String name, String[] names, T[] choices)
+    {
+        int index = Arrays.asList(names).indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown " + kind + ": " + name);
+        }
+        return choices[index];
+    }
+
+    private static <T> String nameOf(T choice, String[] names, T[] choices)
+    {
+        return names[Arrays.asList(choices).indexOf(choice)];
+    }
+
+    /**
+     * Applies the simulation settings to the given simulation. Call before starting it.
+     */
+    public void configure(Simulation simulation)
+    {
+        simulation.getDispatcher().setMaxBatchSize(maxBatchSize);
+        simulation.getDispatcher().setLingerMillis(lingerMillis);
+        if (ingestionMode != null) {
+            simulation.setIngestionMode(ingestionMode);
+        }
+        simulation.setServiceMode(serviceMode, serviceWorkers);
+        simulation.setServiceBays(serviceBays);
+        simulation.setTickParallelism(tickThreads);
+        simulation.setExecutorMode(executorMode);
+        simulation.setRebalancePeriodMillis(rebalanceMillis);
+    }
+
+    /**
+     * Returns the simulation settings as arguments, for a ShardWorker to apply to its shard.
+     */
+    public List<String> getWorkerArguments()
+    {
+        List<String> args = new ArrayList<>(List.of(
+                "--batch", String.valueOf(maxBatchSize), "--linger", String.valueOf(lingerMillis),
+                "--service-mode", nameOf(serviceMode, SERVICE_NAMES, SERVICE_MODES),
+                "--service-workers", String.valueOf(serviceWorkers), "--service-bays", String.valueOf(serviceBays),
+                "--tick-threads", String.valueOf(tickThreads), "--threads", nameOf(executorMode, THREAD_NAMES, THREAD_MODES),
+                "--rebalance-every", String.valueOf(rebalanceMillis)));
+        if (ingestionMode != null) {
+            args.add("--ingest");
+            args.add(nameOf(ingestionMode, INGESTION_NAMES, INGESTION_MODES));
+        }
+        return args;
+    }
+
+    public int getSeconds()
+    {
+        return seconds;
+    }
+
+    public int getRequests()
+    {
+        return requests;
+    }
+
+    public int getNumAirports()
+    {
+        return numAirports;
+    }
+
+    public int getPlanesPerAirport()
+    {
+        return planesPerAirport;
+    }
+
+    /**
+     * Returns the number of shards, or 0 for an ordinary (single-JVM) run.
+     */
+    public int getShards()
+    {
+        return shards;
+    }
+
+    public boolean isVirtual()
+    {
+        return virtual;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Returns the pace of a replay or virtual-time run, relative to real time, or 0 for flat out.
+     */
+    public double getSpeed()
+    {
+        return speed;
+    }
+
+    /**
+     * Returns the ingestion mode given, or null if none was.
+     */
+    public IngestionMode getIngestionMode()
+    {
+        return ingestionMode;
+    }
+
+    public int getServiceWorkers()
+    {
+        return serviceWorkers;
+    }
+
+    public int getServiceBays()
+    {
+        return serviceBays;
+    }
+
+    public ExecutorMode getExecutorMode()
+    {
+        return executorMode;
+    }
+
+    public long getRebalanceMillis()
+    {
+        return rebalanceMillis;
+    }
+
+    public boolean isVerbose()
+    {
+        return verbose;
+    }
+
+    public Path getScenarioFile()
+    {
+        return scenarioFile;
+    }
+
+    public Path getJournalDirectory()
+    {
+        return journalDirectory;
+    }
+
+    public Path getReplayDirectory()
+    {
+        return replayDirectory;
+    }
+
+    public Path getRestoreFile()
+    {
+        return restoreFile;
+    }
+
+    public Path getSnapshotFile()
+    {
+        return snapshotFile;
+    }
+
+    /**
+     * Returns the file to write metrics to ("-" for standard output), or null not to write them.
+     */
+    public String getMetricsFile()
+    {
+        return metricsFile;
+    }
+
+    public double getMetricsSeconds()
+    {
+        return metricsSeconds;
+    }
+
+    public MetricsReporter.Format getMetricsFormat()
+    {
+        return metricsFormat;
+    }
+}
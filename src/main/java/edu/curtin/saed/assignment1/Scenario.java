@@ -0,0 +1,286 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * A simulation set-up loaded from a properties file: the size of the world, where the airports
+ * are, how many planes start at each, and where flight requests come from. For example:
+ *
+ *   name = hub-and-spoke          (optional; defaults to the file name)
+ *   seed = 42                     (for airport placement and synthetic traffic; default random)
+ *   grid.width = 20               (default Simulation.GRID_WIDTH)
+ *   grid.height = 20              (default Simulation.GRID_HEIGHT)
+ *   plane.speed = 0.1             (distance per tick; default Simulation.PLANE_SPEED)
+ *   airports = 50                 (placed at random on the grid; default Simulation.NUM_AIRPORTS)
+ *   airport.1 = 3,4               (or place every airport explicitly, with IDs from 1)
+ *   planes = 3                    (per airport; default Simulation.PLANES_PER_AIRPORT)
+ *   planes.7 = 20                 (overrides 'planes' for airport 7)
+ *   traffic = hub-and-spoke       (classic, poisson, bursty, hub-and-spoke or trace)
+ *   traffic.rate = 1000           (requests per second over the whole network)
+ *   traffic.burst.factor = 10     (bursty: rate multiplier while a burst is on)
+ *   traffic.burst.on = 1000       (bursty: milliseconds on, then off)
+ *   traffic.burst.off = 4000
+ *   traffic.hubs = 1,2            (hub-and-spoke: hub airport IDs)
+ *   traffic.hub.share = 0.8       (hub-and-spoke: share of requests to or from a hub)
+ *   traffic.journal = DIR         (trace: an EventJournal whose flight requests are replayed)
+ *   traffic.speed = 1             (trace: pace relative to the recording; 0 for flat out)
+ *
+ * "classic" traffic leaves requests to the simulation's ingestion mode (the comms programs, or
+ * their in-process equivalent); every other kind is generated in-process.
+ */
+public class Scenario
+{
+    public enum Traffic
+    {
+        CLASSIC, POISSON, BURSTY, HUB_AND_SPOKE, TRACE
+    }
+
+    public static final double DEFAULT_RATE = 100.0;
+
+    private final Properties properties;
+    private final Path baseDirectory;
+    private final String name;
+    private final long seed;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final double planeSpeed;
+    private final Traffic traffic;
+
+    private Scenario(Properties properties, Path file)
+    {
+        this.properties = properties;
+        this.baseDirectory = file.toAbsolutePath().getParent();
+        String fileName = file.getFileName().toString();
+        this.name = properties.getProperty("name", fileName.replaceFirst("\\.[^.]*$", ""));
+        this.seed = properties.containsKey("seed") ? getLong("seed") : new Random().nextLong();
+        this.gridWidth = getInt("grid.width", Simulation.GRID_WIDTH);
+        this.gridHeight = getInt("grid.height", Simulation.GRID_HEIGHT);
+        this.planeSpeed = getDouble("plane.speed", Simulation.PLANE_SPEED);
+        this.traffic = parseTraffic(properties.getProperty("traffic", "classic"));
+        if (gridWidth < 1 || gridHeight < 1 || planeSpeed <= 0.0) {
+            throw new IllegalArgumentException("The grid size and plane speed must be positive");
+        }
+    }
+
+    /**
+     * Reads a scenario file. Throws IllegalArgumentException if a setting is invalid.
+     */
+    public static Scenario load(Path file) throws IOException
+    {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new Scenario(properties, file);
+    }
+
+    private static Traffic parseTraffic(String value)
+    {
+        try {
+            return Traffic.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown traffic kind: " + value, e);
+        }
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public int getGridWidth()
+    {
+        return gridWidth;
+    }
+
+    public int getGridHeight()
+    {
+        return gridHeight;
+    }
+
+    public double getPlaneSpeed()
+    {
+        return planeSpeed;
+    }
+
+    public Traffic getTraffic()
+    {
+        return traffic;
+    }
+
+    /**
+     * Creates the scenario's airports: those placed explicitly, if any, or else the given number
+     * placed at random (using the scenario's seed, so always in the same places).
+     */
+    public List<Airport> createAirports()
+    {
+        List<Airport> airports = new ArrayList<>();
+        for (int id = 1; properties.containsKey("airport." + id); id++) {
+            int[] position = getInts("airport." + id);
+            if (position.length != 2 || position[0] < 0 || position[0] >= gridWidth || position[1] < 0 || position[1] >= gridHeight) {
+                throw new IllegalArgumentException("airport." + id + " must be x,y within the grid");
+            }
+            airports.add(new Airport(id, position[0], position[1]));
+        }
+        if (airports.isEmpty()) {
+            Random random = new Random(seed);
+            int count = getInt("airports", Simulation.NUM_AIRPORTS);
+            for (int i = 0; i < count; i++) {
+                airports.add(new Airport(i + 1, random.nextInt(gridWidth), random.nextInt(gridHeight)));
+            }
+        }
+        if (airports.size() < 2) {
+            throw new IllegalArgumentException("A scenario needs at least 2 airports");
+        }
+        return airports;
+    }
+
+    /**
+     * Creates the fleet, with each airport's planes parked there and in its pool.
+     */
+    public FleetStore createFleet(List<Airport> airports)
+    {
+        int defaultPlanes = getInt("planes", Simulation.PLANES_PER_AIRPORT);
+        FleetStore fleet = new FleetStore(new AirportRegistry(airports), airports.size() * defaultPlanes);
+        for (Airport airport : airports) {
+            int count = getInt("planes." + airport.getId(), defaultPlanes);
+            if (count < 0) {
+                throw new IllegalArgumentException("planes." + airport.getId() + " cannot be negative");
+            }
+            for (int j = 0; j < count; j++) {
+                airport.releasePlane(fleet.add(airport, airport.getX(), airport.getY()));
+            }
+        }
+        return fleet;
+    }
+
+    /**
+     * Creates a simulation of this scenario. Its ingestion mode is set to IN_PROCESS, unless the
+     * traffic is "classic".
+     */
+    public Simulation createSimulation(SimulationListener listener)
+    {
+        List<Airport> airports = createAirports();
+        Simulation simulation = new Simulation(listener, planeSpeed, airports, createFleet(airports));
+        simulation.setGridSize(gridWidth, gridHeight);
+        TrafficSource source = createTrafficSource(airports.size());
+        if (source != null) {
+            simulation.setTrafficSource(source);
+            simulation.setIngestionMode(IngestionMode.IN_PROCESS);
+        }
+        return simulation;
+    }
+
+    /**
+     * Creates the source of the scenario's flight requests, or returns null for "classic" traffic.
+     */
+    public TrafficSource createTrafficSource(int numAirports)
+    {
+        if (traffic == Traffic.CLASSIC) {
+            return null;
+        }
+        if (traffic == Traffic.TRACE) {
+            String journal = properties.getProperty("traffic.journal");
+            if (journal == null) {
+                throw new IllegalArgumentException("Trace traffic needs traffic.journal");
+            }
+            return new TraceTraffic(baseDirectory.resolve(journal.trim()), getDouble("traffic.speed", 1.0));
+        }
+        return createSyntheticTraffic(numAirports);
+    }
+
+    /**
+     * Creates the scenario's synthetic traffic generator. Throws IllegalArgumentException if its
+     * traffic is not synthetic (i.e. is "classic" or "trace").
+     */
+    public SyntheticTraffic createSyntheticTraffic(int numAirports)
+    {
+        SyntheticTraffic.Profile profile;
+        switch (traffic) {
+            case POISSON:
+                profile = SyntheticTraffic.Profile.POISSON;
+                break;
+            case BURSTY:
+                profile = SyntheticTraffic.Profile.BURSTY;
+                break;
+            case HUB_AND_SPOKE:
+                profile = SyntheticTraffic.Profile.HUB_AND_SPOKE;
+                break;
+            default:
+                throw new IllegalArgumentException("Traffic is not synthetic: " + traffic);
+        }
+
+        SyntheticTraffic generator = new SyntheticTraffic(numAirports, profile, getDouble("traffic.rate", DEFAULT_RATE), seed);
+        if (profile == SyntheticTraffic.Profile.BURSTY) {
+            generator.setBursts(getDouble("traffic.burst.factor", SyntheticTraffic.DEFAULT_BURST_FACTOR),
+                    getLong("traffic.burst.on", SyntheticTraffic.DEFAULT_BURST_ON_MILLIS),
+                    getLong("traffic.burst.off", SyntheticTraffic.DEFAULT_BURST_OFF_MILLIS));
+        } else if (profile == SyntheticTraffic.Profile.HUB_AND_SPOKE) {
+            int[] hubs = properties.containsKey("traffic.hubs") ? getInts("traffic.hubs") : new int[] {1};
+            for (int i = 0; i < hubs.length; i++) {
+                hubs[i]--;  // IDs to indexes.
+            }
+            generator.setHubs(hubs, getDouble("traffic.hub.share", SyntheticTraffic.DEFAULT_HUB_SHARE));
+        }
+        return generator;
+    }
+
+    private int getInt(String key, int defaultValue)
+    {
+        return properties.containsKey(key) ? (int) getLong(key) : defaultValue;
+    }
+
+    private long getLong(String key, long defaultValue)
+    {
+        return properties.containsKey(key) ? getLong(key) : defaultValue;
+    }
+
+    private long getLong(String key)
+    {
+        try {
+            return Long.parseLong(properties.getProperty(key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number", e);
+        }
+    }
+
+    private double getDouble(String key, double defaultValue)
+    {
+        if (!properties.containsKey(key)) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(properties.getProperty(key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a number", e);
+        }
+    }
+
+    private int[] getInts(String key)
+    {
+        String[] parts = properties.getProperty(key).split(",");
+        int[] values = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Integer.parseInt(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a comma-separated list of whole numbers", e);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,248 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An airport's service bays: a fixed number of planes can be serviced there at once, and the rest
+ * wait in the airport's own queue, first come first served. Bays are only bookkeeping; the
+ * services themselves are run by whoever is handed them (see admit() and finish()).
+ *
+ * A plane given a bay may still wait for whoever runs the services (e.g. for a ServiceWorkerPool
+ * thread to take it from the pool's queue), so a bay only counts as busy once its service has
+ * actually begun (see begin()). Each airport's utilisation (the time-averaged fraction of its bays
+ * busy) and how long planes waited for their service to begin therefore show which airports are
+ * hotspots under load, wherever the waiting happens.
+ */
+public class ServiceBays
+{
+    public static final int DEFAULT_CAPACITY = 2;
+
+    private final Object lock = new Object();
+    private final Deque<ServiceRequest> waiting = new ArrayDeque<>();
+    private int capacity = DEFAULT_CAPACITY;
+    private int taken = 0;  // Bays given to a request, whether or not its service has begun.
+    private int busy = 0;   // Bays whose service has begun.
+    private volatile int queueLength = 0;  // waiting.size(), readable without the lock.
+
+    private long statsStartNanos = System.nanoTime();
+    private long lastChangeNanos = statsStartNanos;
+    private long busyBayNanos = 0;  // Integral of 'busy' over time, up to lastChangeNanos.
+    private long waitCount = 0;
+    private long waitTotalNanos = 0;
+    private long waitMaxNanos = 0;
+
+    /**
+     * Sets the number of bays. Should only be changed while no services are in progress.
+     */
+    public void setCapacity(int capacity)
+    {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("An airport needs at least one service bay");
+        }
+        synchronized (lock) {
+            this.capacity = capacity;
+        }
+    }
+
+    public int getCapacity()
+    {
+        synchronized (lock) {
+            return capacity;
+        }
+    }
+
+    /**
+     * Takes a free bay for the given request and returns true (the caller must then start the
+     * service), or, if all bays are taken, queues the request and returns false.
+     */
+    public boolean admit(ServiceRequest request, long now)
+    {
+        synchronized (lock) {
+            if (taken < capacity && waiting.isEmpty()) {
+                taken++;
+                return true;
+            }
+            waiting.addLast(request);
+            queueLength = waiting.size();
+            return false;
+        }
+    }
+
+    /**
+     * Marks the service of a request that has been given a bay as begun, so that its bay counts as
+     * busy, and records how long the plane waited for it since landing.
+     */
+    public void begin(ServiceRequest request, long now)
+    {
+        synchronized (lock) {
+            setBusy(busy + 1, now);
+            recordWait(request, now);
+            request.setStarted(true);
+        }
+    }
+
+    /**
+     * Frees the bay of a finished service. Returns the next waiting request, which now has that
+     * bay (and which the caller must start), or null if there is none.
+     */
+    public ServiceRequest finish(long now)
+    {
+        synchronized (lock) {
+            setBusy(Math.max(0, busy - 1), now);
+            ServiceRequest next = (taken <= capacity) ? waiting.pollFirst() : null;
+            if (next == null) {
+                taken = Math.max(0, taken - 1);
+            } else {
+                queueLength = waiting.size();
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Frees the bay of a service that was abandoned, whether or not it had begun (e.g. by stopping
+     * the simulation), and puts it back at the front of the queue.
+     */
+    public void requeue(ServiceRequest request, long now)
+    {
+        synchronized (lock) {
+            taken = Math.max(0, taken - 1);
+            if (request.isStarted()) {
+                setBusy(Math.max(0, busy - 1), now);
+                request.setStarted(false);
+            }
+            waiting.addFirst(request);
+            queueLength = waiting.size();
+        }
+    }
+
+    /**
+     * Adds a request to the end of the queue without starting it, e.g. when restoring a snapshot.
+     */
+    public void enqueue(ServiceRequest request)
+    {
+        synchronized (lock) {
+            waiting.addLast(request);
+            queueLength = waiting.size();
+        }
+    }
+
+    /**
+     * Fills any free bays from the queue, and returns the requests the caller must now start.
+     */
+    public List<ServiceRequest> startWaiting(long now)
+    {
+        List<ServiceRequest> started = new ArrayList<>();
+        if (queueLength == 0) {
+            return started;
+        }
+        synchronized (lock) {
+            while (taken < capacity && !waiting.isEmpty()) {
+                started.add(waiting.pollFirst());
+                taken++;
+            }
+            queueLength = waiting.size();
+        }
+        return started;
+    }
+
+    /**
+     * Returns a copy of the queue, first in line first.
+     */
+    public List<ServiceRequest> getWaiting()
+    {
+        synchronized (lock) {
+            return new ArrayList<>(waiting);
+        }
+    }
+
+    /**
+     * Returns the number of bays whose service has begun.
+     */
+    public int getBusy()
+    {
+        synchronized (lock) {
+            return busy;
+        }
+    }
+
+    public int getQueueLength()
+    {
+        return queueLength;
+    }
+
+    /**
+     * Returns the fraction of bay-time busy since the statistics were last reset.
+     */
+    public double getUtilisation(long now)
+    {
+        synchronized (lock) {
+            long elapsed = now - statsStartNanos;
+            if (elapsed <= 0) {
+                return 0.0;
+            }
+            double busyNanos = busyBayNanos + (double) busy * (now - lastChangeNanos);
+            return busyNanos / ((double) capacity * elapsed);
+        }
+    }
+
+    /**
+     * Returns the number of services that have begun since the statistics were reset.
+     */
+    public long getWaitCount()
+    {
+        synchronized (lock) {
+            return waitCount;
+        }
+    }
+
+    /**
+     * Returns the mean time from landing to the service beginning.
+     */
+    public double getMeanWaitNanos()
+    {
+        synchronized (lock) {
+            return (waitCount == 0) ? 0.0 : (double) waitTotalNanos / waitCount;
+        }
+    }
+
+    public long getMaxWaitNanos()
+    {
+        synchronized (lock) {
+            return waitMaxNanos;
+        }
+    }
+
+    /**
+     * Starts measuring utilisation and waits afresh from now.
+     */
+    public void resetStats(long now)
+    {
+        synchronized (lock) {
+            statsStartNanos = now;
+            lastChangeNanos = now;
+            busyBayNanos = 0;
+            waitCount = 0;
+            waitTotalNanos = 0;
+            waitMaxNanos = 0;
+        }
+    }
+
+    private void setBusy(int newBusy, long now)
+    {
+        busyBayNanos += busy * (now - lastChangeNanos);
+        lastChangeNanos = now;
+        busy = newBusy;
+    }
+
+    private void recordWait(ServiceRequest request, long now)
+    {
+        long wait = Math.max(0, now - request.getCreatedNanos());
+        waitCount++;
+        waitTotalNanos += wait;
+        waitMaxNanos = Math.max(waitMaxNanos, wait);
+    }
+}
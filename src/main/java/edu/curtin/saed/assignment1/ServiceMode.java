@@ -0,0 +1,29 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * How plane services are carried out.
+ */
+public enum ServiceMode
+{
+    /** Start a new saed_plane_service process for every service (the original behaviour). */
+    FORK_PER_SERVICE,
+
+    /** Send services to long-lived worker JVMs, each running the services of several pool threads. */
+    WORKER_PROCESS;
+
+    /**
+     * Creates a servicer for the given number of threads to share, i.e. for that many services at
+     * once.
+     */
+    public PlaneServicer createServicer(int concurrency)
+    {
+        switch (this) {
+            case FORK_PER_SERVICE:
+                return new ForkingPlaneServicer();
+            case WORKER_PROCESS:
+                return new WorkerProcessPlaneServicer(concurrency);
+            default:
+                throw new AssertionError("Unknown service mode: " + this);
+        }
+    }
+}
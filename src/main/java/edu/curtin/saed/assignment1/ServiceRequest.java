@@ -0,0 +1,68 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * A plane that has landed and is waiting to be serviced at an airport.
+ */
+public class ServiceRequest
+{
+    private final Airport airport;
+    private final Plane plane;
+    private final long createdNanos;
+    private final long requestedNanos;
+    private volatile boolean started = false;  // Set by ServiceBays.begin().
+
+    public ServiceRequest(Airport airport, Plane plane)
+    {
+        this(airport, plane, System.nanoTime());
+    }
+
+    public ServiceRequest(Airport airport, Plane plane, long createdNanos)
+    {
+        this(airport, plane, createdNanos, createdNanos);
+    }
+
+    /**
+     * Creates a service request, made at 'createdNanos', for a plane whose flight was requested
+     * at 'requestedNanos' (so that the whole request can be timed end to end).
+     */
+    public ServiceRequest(Airport airport, Plane plane, long createdNanos, long requestedNanos)
+    {
+        this.airport = airport;
+        this.plane = plane;
+        this.createdNanos = createdNanos;
+        this.requestedNanos = requestedNanos;
+    }
+
+    public Airport getAirport()
+    {
+        return airport;
+    }
+
+    public Plane getPlane()
+    {
+        return plane;
+    }
+
+    public long getCreatedNanos()
+    {
+        return createdNanos;
+    }
+
+    public long getRequestedNanos()
+    {
+        return requestedNanos;
+    }
+
+    /**
+     * Returns whether the service is in progress (see ServiceBays.begin()).
+     */
+    public boolean isStarted()
+    {
+        return started;
+    }
+
+    /* default */ void setStarted(boolean started)
+    {
+        this.started = started;
+    }
+}
@@ -0,0 +1,159 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed number of service threads, multiplexing service requests over them, and sharing a
+ * (usually smaller) number of PlaneServicers between them; e.g. a few worker JVMs each running the
+ * services of several threads. The number of threads is how many services may run at once, however
+ * many are waiting. Requests wait for a thread in a queue of fixed capacity; offer() never blocks,
+ * and it is up to the caller not to offer more than that (Simulation offers only services that have
+ * a service bay, and sizes the queue to hold one for every bay).
+ */
+public class ServiceWorkerPool
+{
+    public static final int DEFAULT_CONCURRENCY = 64;
+    public static final int DEFAULT_SERVICERS = 8;
+
+    /**
+     * Receives the outcome of each service, on the pool thread that performed it.
+     */
+    public interface Listener
+    {
+        void serviceStarted(ServiceRequest request);
+
+        void serviceCompleted(ServiceRequest request, String message);
+
+        void serviceFailed(ServiceRequest request, IOException e);
+    }
+
+    private final BlockingQueue<ServiceRequest> jobs;
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<PlaneServicer> servicers = new ArrayList<>();
+    private final List<ServiceRequest> abandoned = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger busyWorkers = new AtomicInteger(0);
+
+    public ServiceWorkerPool(int concurrency, int servicerCount, int queueCapacity, ServiceMode mode, Listener listener)
+    {
+        this(concurrency, servicerCount, queueCapacity, mode, ExecutorMode.PLATFORM_THREADS, listener);
+    }
+
+    /**
+     * Creates a pool of 'concurrency' service threads of the given kind, taking turns to share
+     * min(concurrency, servicerCount) servicers, each created for the number of threads sharing
+     * it. (A service thread spends nearly all its time waiting for a service, so they may as well
+     * be virtual threads.)
+     */
+    public ServiceWorkerPool(int concurrency, int servicerCount, int queueCapacity, ServiceMode mode, ExecutorMode executorMode,
+                             Listener listener)
+    {
+        if (concurrency < 1 || servicerCount < 1) {
+            throw new IllegalArgumentException("A service pool needs at least one thread and servicer");
+        }
+        jobs = new ArrayBlockingQueue<>(queueCapacity);
+        int count = Math.min(concurrency, servicerCount);
+        for (int i = 0; i < count; i++) {
+            servicers.add(mode.createServicer((concurrency - i + count - 1) / count));  // Threads i, i + count, ...
+        }
+        for (int i = 0; i < concurrency; i++) {
+            PlaneServicer servicer = servicers.get(i % servicers.size());
+            threads.add(executorMode.newThread("plane-service-" + i, () -> runWorker(servicer, listener)));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    private void runWorker(PlaneServicer servicer, Listener listener)
+    {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ServiceRequest request = jobs.take();
+                busyWorkers.incrementAndGet();
+                try {
+                    listener.serviceStarted(request);
+                    String message = servicer.service(request.getAirport().getId(), request.getPlane().getId());
+                    listener.serviceCompleted(request, message);
+                } catch (IOException e) {
+                    // A failure caused by shutdown() closing the servicer isn't worth reporting, but
+                    // the service still needs doing.
+                    if (Thread.currentThread().isInterrupted()) {
+                        abandoned.add(request);
+                    } else {
+                        listener.serviceFailed(request, e);
+                    }
+                } finally {
+                    busyWorkers.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a service if there is room, without blocking, and returns whether there was.
+     */
+    public boolean offer(ServiceRequest request)
+    {
+        return jobs.offer(request);
+    }
+
+    public int getQueueDepth()
+    {
+        return jobs.size();
+    }
+
+    public int getBusyWorkers()
+    {
+        return busyWorkers.get();
+    }
+
+    public int getConcurrency()
+    {
+        return threads.size();
+    }
+
+    /**
+     * Stops all pool threads and servicers (and hence any worker processes), abandoning any queued
+     * or in-progress services. Returns the abandoned service requests, so that they can be
+     * retried later.
+     */
+    public List<ServiceRequest> shutdown()
+    {
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (PlaneServicer servicer : servicers) {
+            servicer.close();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Thread thread : threads) {
+            try {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis > 0) {
+                    thread.join(remainingMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<ServiceRequest> unfinished = new ArrayList<>();
+        jobs.drainTo(unfinished);
+        synchronized (abandoned) {
+            unfinished.addAll(abandoned);
+            abandoned.clear();
+        }
+        return unfinished;
+    }
+}
@@ -0,0 +1,370 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a simulation split across several ShardWorker JVMs on this host, each owning a range of
+ * the airports (see ShardLayout), so that it is not limited to one heap or to the threads of one
+ * process.
+ *
+ * The coordinator keeps the shards in step. Every TICK_MILLIS, it tells every shard to tick, and
+ * waits for them all to finish before the next tick. Planes handed off by one shard (for flights
+ * to another shard's airports) come back with its reply, and are passed to their destination's
+ * shard with the next tick, so they take off one tick later than a flight within a shard would.
+ * Each reply also carries the shard's counters, which the coordinator adds up. When stopping, the
+ * planes still held by the coordinator are passed on with STOP, but are too late to fly, so their
+ * destination shards count them as lost (see getTransfersLost()), along with any they handed off
+ * since their last tick.
+ *
+ * A shard that takes longer than REPLY_TIMEOUT_MILLIS to reply (e.g. because it has hung) stops
+ * the run, with getFailure() saying why.
+ *
+ * Separation conflicts are only detected between planes flown by the same shard.
+ */
+public class ShardCoordinator
+{
+    public static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    public static final int REPLY_TIMEOUT_MILLIS = 30_000;
+    public static final int EXIT_TIMEOUT_SECONDS = 10;
+
+    private final ShardLayout layout;
+    private final int planesPerAirport;
+    private final List<String> workerOptions;
+    private final long seed;
+    private final List<Process> processes = new ArrayList<>();
+    private final List<Link> links = new ArrayList<>();
+    private final LatencyHistogram tickLatency = new LatencyHistogram();  // Tick sent -> every shard done
+    private final Object lock = new Object();
+    private final long[][] counters;  // Latest counters from each shard; guarded by lock.
+    private Thread thread;
+    private volatile boolean running = false;
+    private volatile long ticks = 0;
+    private volatile int transfersPending = 0;
+    private volatile int transfersLost = 0;
+    private volatile IOException failure;
+
+    /**
+     * Creates a coordinator for the given layout, with 'planesPerAirport' planes starting at every
+     * airport, placed using the given seed. The worker options (see RunOptions) are passed on to
+     * every shard.
+     */
+    public ShardCoordinator(ShardLayout layout, int planesPerAirport, long seed, List<String> workerOptions)
+    {
+        this.layout = layout;
+        this.planesPerAirport = planesPerAirport;
+        this.seed = seed;
+        this.workerOptions = new ArrayList<>(workerOptions);
+        this.counters = new long[layout.getShardCount()][ShardProtocol.COUNTERS.size()];
+    }
+
+    public ShardLayout getLayout()
+    {
+        return layout;
+    }
+
+    /**
+     * Starts the shard JVMs, waits for them all to connect, and starts ticking.
+     */
+    public void start() throws IOException
+    {
+        int shardCount = layout.getShardCount();
+        try (ServerSocket server = new ServerSocket(0, shardCount, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            for (int shard = 0; shard < shardCount; shard++) {
+                List<String> args = new ArrayList<>(List.of(
+                        String.valueOf(server.getLocalPort()), String.valueOf(shard), "--shards", String.valueOf(shardCount),
+                        "--seed", String.valueOf(seed), "--airports", String.valueOf(layout.getNumAirports()),
+                        "--planes", String.valueOf(planesPerAirport)));
+                args.addAll(workerOptions);
+                processes.add(Simulation.execJava(ShardWorker.class, args.toArray(new String[0])));
+            }
+
+            Link[] connected = new Link[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                Link link = new Link(server.accept());
+                if (link.in.readByte() != ShardProtocol.HELLO) {
+                    link.close();
+                    throw new IOException("Shard did not introduce itself");
+                }
+                int shard = link.in.readInt();
+                if (shard < 0 || shard >= shardCount || connected[shard] != null) {
+                    link.close();
+                    throw new IOException("Unexpected shard number: " + shard);
+                }
+                connected[shard] = link;
+            }
+            links.addAll(List.of(connected));
+        } catch (IOException e) {
+            closeAll();
+            throw e;
+        }
+
+        running = true;
+        thread = new Thread(this::runTicks, "shard-coordinator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops ticking, tells every shard to stop, and collects their final counters. If the shards
+     * have not all stopped within REPLY_TIMEOUT_MILLIS, gives up on them, and the run fails.
+     */
+    public void stop()
+    {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(REPLY_TIMEOUT_MILLIS);
+                if (thread.isAlive()) {
+                    closeAll();  // Unblocks the coordinator thread.
+                    thread.join();
+                    failure = new IOException("Shards did not stop within " + REPLY_TIMEOUT_MILLIS + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        closeAll();
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * Returns the error that stopped the shards early (e.g. one of them died), or null.
+     */
+    public IOException getFailure()
+    {
+        return failure;
+    }
+
+    private void runTicks()
+    {
+        List<List<PlaneTransfer>> inboxes = new ArrayList<>();
+        while (inboxes.size() < links.size()) {
+            inboxes.add(new ArrayList<>());
+        }
+
+        try {
+            long tickNanos = TimeUnit.MILLISECONDS.toNanos(SimulationEngine.TICK_MILLIS);
+            long nextTick = System.nanoTime() + tickNanos;
+            long tick = 0;
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                nextTick = Math.max(nextTick + tickNanos, System.nanoTime());
+
+                // Every shard works on the tick at once; then wait for the slowest.
+                long startTime = System.nanoTime();
+                for (int shard = 0; shard < links.size(); shard++) {
+                    links.get(shard).sendTick(tick, inboxes.get(shard));
+                    inboxes.get(shard).clear();
+                }
+                int pending = 0;
+                for (int shard = 0; shard < links.size(); shard++) {
+                    for (PlaneTransfer transfer : links.get(shard).receiveTickDone(tick, counters[shard])) {
+                        inboxes.get(layout.getShard(transfer.getDestinationId())).add(transfer);
+                        pending++;
+                    }
+                }
+                tickLatency.record(System.nanoTime() - startTime);
+                transfersPending = pending;
+                tick++;
+                ticks = tick;
+            }
+
+            for (int shard = 0; shard < links.size(); shard++) {
+                links.get(shard).sendStop(inboxes.get(shard));
+            }
+            transfersPending = 0;
+            int lost = 0;
+            for (int shard = 0; shard < links.size(); shard++) {
+                lost += links.get(shard).receiveStopped(counters[shard]);
+            }
+            transfersLost = lost;
+        } catch (SocketTimeoutException e) {
+            failure = new IOException("A shard did not reply within " + REPLY_TIMEOUT_MILLIS + " ms", e);
+            running = false;
+        } catch (IOException e) {
+            failure = e;
+            running = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeAll()
+    {
+        for (Link link : links) {
+            link.close();
+        }
+        links.clear();
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroy();
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+        processes.clear();
+    }
+
+    /**
+     * Returns the total of the given counter (one of ShardProtocol.COUNTERS) over every shard, as
+     * of the last tick.
+     */
+    public long getValue(String name)
+    {
+        int index = ShardProtocol.COUNTERS.indexOf(name);
+        long total = 0;
+        synchronized (lock) {
+            for (long[] values : counters) {
+                total += values[index];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the given counter for one shard, as of the last tick.
+     */
+    public long getValue(int shard, String name)
+    {
+        synchronized (lock) {
+            return counters[shard][ShardProtocol.COUNTERS.indexOf(name)];
+        }
+    }
+
+    /**
+     * Returns the number of ticks every shard has completed.
+     */
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of handed-off planes held by the coordinator, between shards.
+     */
+    public int getTransfersPending()
+    {
+        return transfersPending;
+    }
+
+    /**
+     * Returns the number of planes between shards when the run stopped (handed off with or after
+     * the last tick), which never flew to their destinations (and so remain remote everywhere).
+     */
+    public int getTransfersLost()
+    {
+        return transfersLost;
+    }
+
+    /**
+     * Returns the time from sending each tick to every shard having finished it.
+     */
+    public LatencyHistogram getTickLatency()
+    {
+        return tickLatency;
+    }
+
+    public String getStatusText()
+    {
+        return "In-Flight: " + (getValue("in-flight") + transfersPending) + " | Service: " + getValue("undergoing-service")
+                + " | Completed Trips: " + getValue("trips-completed");
+    }
+
+    /**
+     * One shard's socket connection.
+     */
+    private final class Link
+    {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        private Link(Socket socket) throws IOException
+        {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(REPLY_TIMEOUT_MILLIS);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        private void sendTick(long tick, List<PlaneTransfer> transfers) throws IOException
+        {
+            out.writeByte(ShardProtocol.TICK);
+            out.writeLong(tick);
+            ShardProtocol.writeTransfers(out, transfers);
+            out.flush();
+        }
+
+        /**
+         * Reads a shard's reply to the given tick into 'values', and returns the planes it handed off.
+         */
+        private List<PlaneTransfer> receiveTickDone(long tick, long[] values) throws IOException
+        {
+            if (in.readByte() != ShardProtocol.TICK_DONE || in.readLong() != tick) {
+                throw new IOException("Shard out of step at tick " + tick);
+            }
+            readCounters(values);
+            return ShardProtocol.readTransfers(in);
+        }
+
+        private void sendStop(List<PlaneTransfer> transfers) throws IOException
+        {
+            out.writeByte(ShardProtocol.STOP);
+            ShardProtocol.writeTransfers(out, transfers);
+            out.flush();
+        }
+
+        /**
+         * Reads a shard's final counters into 'values', and returns the number of planes it lost.
+         */
+        private int receiveStopped(long[] values) throws IOException
+        {
+            if (in.readByte() != ShardProtocol.STOPPED) {
+                throw new IOException("Shard did not stop");
+            }
+            readCounters(values);
+            return in.readInt();
+        }
+
+        private void readCounters(long[] values) throws IOException
+        {
+            long[] received = ShardProtocol.readCounters(in);
+            synchronized (lock) {
+                System.arraycopy(received, 0, values, 0, values.length);
+            }
+        }
+
+        private void close()
+        {
+            try {
+                socket.close();
+            } catch (IOException e) { // NOPMD - empty catch
+                // Nothing more to say to this shard anyway.
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * How airports are divided between the shards of a sharded simulation (see ShardCoordinator).
+ * Each shard owns a contiguous range of airport IDs, as equal in size as possible, so that
+ * ownership can be worked out from an airport's ID alone, without any lookup table.
+ */
+public class ShardLayout
+{
+    private final int numAirports;
+    private final int shardCount;
+
+    public ShardLayout(int numAirports, int shardCount)
+    {
+        if (shardCount < 1 || shardCount > numAirports) {
+            throw new IllegalArgumentException("Need between 1 and " + numAirports + " shards (one airport each, at least)");
+        }
+        this.numAirports = numAirports;
+        this.shardCount = shardCount;
+    }
+
+    public int getNumAirports()
+    {
+        return numAirports;
+    }
+
+    public int getShardCount()
+    {
+        return shardCount;
+    }
+
+    /**
+     * Returns the index (from 0) of the shard that owns the given airport.
+     */
+    public int getShard(int airportId)
+    {
+        return (int) ((long) (airportId - 1) * shardCount / numAirports);
+    }
+
+    /**
+     * Returns the ID of the first airport owned by the given shard.
+     */
+    public int getFirstAirportId(int shard)
+    {
+        return firstIndex(shard) + 1;
+    }
+
+    /**
+     * Returns the number of airports owned by the given shard.
+     */
+    public int getAirportCount(int shard)
+    {
+        return firstIndex(shard + 1) - firstIndex(shard);
+    }
+
+    /**
+     * The first (0-based) airport index i for which getShard(i + 1) == shard, i.e. the smallest i
+     * with i * shardCount / numAirports >= shard.
+     */
+    private int firstIndex(int shard)
+    {
+        return (int) (((long) shard * numAirports + shardCount - 1) / shardCount);
+    }
+}
@@ -0,0 +1,77 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The messages between a ShardCoordinator and its ShardWorkers, over a loopback socket. Each
+ * message is a one-byte type followed by big-endian fields:
+ *
+ *   worker -> coordinator  HELLO      shard
+ *   coordinator -> worker  TICK       tick, transfers   Hands over planes, then steps every flight once.
+ *   worker -> coordinator  TICK_DONE  tick, counters, transfers   Planes handed off since the last tick.
+ *   coordinator -> worker  STOP       transfers   Hands over the last planes between shards, then stops.
+ *   worker -> coordinator  STOPPED    counters, lost   Planes from STOP or handed off since the last tick.
+ *
+ * where 'transfers' is a count followed by that many PlaneTransfers, and 'counters' holds the
+ * worker's value of each of COUNTERS, in order.
+ */
+public final class ShardProtocol
+{
+    public static final byte HELLO = 1;
+    public static final byte TICK = 2;
+    public static final byte TICK_DONE = 3;
+    public static final byte STOP = 4;
+    public static final byte STOPPED = 5;
+
+    /** The metrics each worker reports after every tick, for the coordinator to add up. */
+    public static final List<String> COUNTERS = List.of(
+            "requests-received", "requests-dispatched", "invalid-requests", "requests-served",
+            "requests-deferred", "requests-dropped", "ferry-flights", "in-flight", "trips-completed",
+            "undergoing-service", "services-completed", "conflicts", "backlog", "service-queue",
+            "planes-handed-off", "planes-received");
+
+    private ShardProtocol()
+    {
+    }
+
+    public static void writeCounters(DataOutput out, MetricsRegistry.Snapshot metrics) throws IOException
+    {
+        for (String name : COUNTERS) {
+            out.writeLong(metrics.getValue(name));
+        }
+    }
+
+    public static long[] readCounters(DataInput in) throws IOException
+    {
+        long[] values = new long[COUNTERS.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    public static void writeTransfers(DataOutput out, List<PlaneTransfer> transfers) throws IOException
+    {
+        out.writeInt(transfers.size());
+        for (PlaneTransfer transfer : transfers) {
+            transfer.write(out);
+        }
+    }
+
+    public static List<PlaneTransfer> readTransfers(DataInput in) throws IOException
+    {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid transfer count: " + count);
+        }
+        List<PlaneTransfer> transfers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            transfers.add(PlaneTransfer.read(in));
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,168 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Entry point for one shard of a sharded simulation, started by a ShardCoordinator. The shard
+ * runs an ordinary Simulation, but only its own airports (see ShardLayout) request flights and
+ * hold planes. Every shard builds the same airport layout from the same seed, and numbers the
+ * planes the same way, so airports and planes can be referred to by ID across shards; a plane
+ * that is elsewhere is just marked as remote.
+ *
+ * The shard connects back to the coordinator's loopback port, and from then on only ticks when
+ * told to. Planes leaving for other shards' airports are collected, and sent to the coordinator
+ * after the next tick along with the shard's counters.
+ *
+ * Usage: ShardWorker PORT SHARD --shards N --seed N --airports N --planes N [option]...
+ * where the options are RunOptions, of which only the simulation settings apply.
+ */
+public class ShardWorker implements SimulationListener, PlaneHandoff
+{
+    private final int shard;
+    private final Simulation simulation;
+    private final Queue<PlaneTransfer> outbox = new ConcurrentLinkedQueue<>();
+
+    public ShardWorker(ShardLayout layout, int shard, long seed, int planesPerAirport)
+    {
+        this.shard = shard;
+        List<Airport> airports = Simulation.createAirports(layout.getNumAirports(), new Random(seed));
+        FleetStore fleet = new FleetStore(new AirportRegistry(airports), airports.size() * planesPerAirport);
+        for (Airport airport : airports) {
+            boolean owned = layout.getShard(airport.getId()) == shard;
+            for (int j = 0; j < planesPerAirport; j++) {
+                Plane plane = fleet.add(airport, airport.getX(), airport.getY());
+                if (owned) {
+                    airport.releasePlane(plane);
+                } else {
+                    fleet.setStatus(plane.getIndex(), FleetStore.REMOTE);
+                }
+            }
+        }
+        simulation = new Simulation(this, Simulation.PLANE_SPEED, airports, fleet);
+        simulation.setShard(layout, shard, this);
+    }
+
+    public static void main(String[] args)
+    {
+        ShardWorker worker;
+        int port;
+        try {
+            port = Integer.parseInt(args[0]);
+            int shard = Integer.parseInt(args[1]);
+            RunOptions options = RunOptions.parse(Arrays.copyOfRange(args, 2, args.length));
+            ShardLayout layout = new ShardLayout(options.getNumAirports(), options.getShards());
+            worker = new ShardWorker(layout, shard, options.getSeed(), options.getPlanesPerAirport());
+            options.configure(worker.simulation);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("Invalid shard worker arguments (" + e.getMessage() + "). Expected PORT SHARD --shards N --seed N --airports N --planes N [option]...");
+            return;
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            worker.serve(in, out);
+        } catch (IOException e) {
+            // Normally the coordinator has gone, in which case so should we.
+            System.err.println("Shard " + worker.shard + ": " + e);
+        }
+    }
+
+    /**
+     * Runs the shard until the coordinator says to stop, or goes away.
+     */
+    private void serve(DataInputStream in, DataOutputStream out) throws IOException
+    {
+        out.writeByte(ShardProtocol.HELLO);
+        out.writeInt(shard);
+        out.flush();
+
+        int stranded = 0;
+        simulation.start();
+        try {
+            while (true) {
+                byte type = in.readByte();
+                if (type == ShardProtocol.TICK) {
+                    long tick = in.readLong();
+                    for (PlaneTransfer transfer : ShardProtocol.readTransfers(in)) {
+                        simulation.receivePlane(transfer);
+                    }
+                    simulation.tick();
+
+                    List<PlaneTransfer> leaving = new ArrayList<>();
+                    PlaneTransfer transfer;
+                    while ((transfer = outbox.poll()) != null) {
+                        leaving.add(transfer);
+                    }
+                    out.writeByte(ShardProtocol.TICK_DONE);
+                    out.writeLong(tick);
+                    ShardProtocol.writeCounters(out, simulation.getMetrics().snapshot());
+                    ShardProtocol.writeTransfers(out, leaving);
+                    out.flush();
+                    printErrors();
+                } else if (type == ShardProtocol.STOP) {
+                    // Too late to fly them: they could never land, so they are counted as lost.
+                    stranded = ShardProtocol.readTransfers(in).size();
+                    break;
+                } else {
+                    throw new IOException("Unexpected message type: " + type);
+                }
+            }
+        } finally {
+            simulation.stop();
+        }
+
+        out.writeByte(ShardProtocol.STOPPED);
+        ShardProtocol.writeCounters(out, simulation.getMetrics().snapshot());
+        out.writeInt(stranded + outbox.size());  // Too late to deliver, so they never land.
+        out.flush();
+        printErrors();
+    }
+
+    /**
+     * Passes on errors from the shard's event log (and discards everything else), since the
+     * coordinator only sees the shard's standard error.
+     */
+    private void printErrors()
+    {
+        int drained;
+        do {
+            drained = simulation.getEventLog().drain((type, a, b, c, text) -> {
+                if (type == EventType.ERROR) {
+                    System.err.println("Shard " + shard + ": " + type.format(a, b, c, text));
+                }
+            }, EventLog.DEFAULT_CAPACITY);
+        } while (drained > 0);
+    }
+
+    @Override
+    public void handOff(Plane plane, Airport origin, Airport destination, long requestedNanos)
+    {
+        outbox.add(new PlaneTransfer(plane.getIndex(), origin.getId(), destination.getId(), requestedNanos));
+    }
+
+    @Override
+    public void statisticsChanged()
+    {
+        // The coordinator collects the counters after every tick.
+    }
+
+    @Override
+    public void tickCompleted(long tick)
+    {
+        // Nothing to render.
+    }
+}
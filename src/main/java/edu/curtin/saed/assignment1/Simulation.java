@@ -0,0 +1,768 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The air traffic model: airports, planes, flight requests and plane servicing. This class has no
+ * JavaFX dependency, so that it can be driven either by the GUI (App) or by HeadlessRunner. The
+ * model's rules and metrics are in FlightOperations, shared with DiscreteEventSimulation; this
+ * class runs them in real time, flying planes on a SimulationEngine and servicing them in worker
+ * processes.
+ *
+ * A landed plane is serviced before it is available again. Each airport has its own service bays
+ * (see ServiceBays), and a plane waits at its airport until a bay is free. Every airport's services
+ * run in parallel with every other's, on a ServiceWorkerPool with a thread for every bay (of this
+ * simulation's own airports), up to a bounded number of threads (see setServiceMode()); beyond
+ * that, services with a bay wait in the pool's queue for a thread. The queue is sized to hold every
+ * bay's service, so handing one over never blocks. (The threads share a few servicers, e.g. worker
+ * JVMs each running several services at once.) A bay only counts as busy, for its utilisation and
+ * waits, once a pool thread has begun its service.
+ *
+ * A simulation may also be one shard of a larger one (see ShardWorker), owning only some of the
+ * airports. Its flights to other shards' airports are then handed off when they depart, and it is
+ * ticked by the shard coordinator rather than by its own engine thread.
+ */
+public class Simulation implements TrafficModel, FlightListener, ServiceWorkerPool.Listener, BatchingDispatcher.Handler
+{
+    public static final int NUM_AIRPORTS = 5;
+    public static final int PLANES_PER_AIRPORT = 3;
+    public static final int GRID_WIDTH = 10;
+    public static final int GRID_HEIGHT = 10;
+    public static final double PLANE_SPEED = 0.1;
+    public static final double SEPARATION = 0.02;
+    public static final int MAX_BACKLOG = 1024;  // Flight requests waiting for a plane, per airport.
+
+    private final SimulationListener listener;
+    private final EventLog eventLog = new EventLog(EventLog.DEFAULT_CAPACITY);
+    private final double planeSpeed;
+    private final List<Airport> airports = new ArrayList<>();
+    private final List<Plane> planes = new ArrayList<>();
+    private final FleetStore fleet;
+    private final AirportRegistry airportRegistry;
+    private final SimulationEngine engine;
+    private final BatchingDispatcher dispatcher;
+    private final FlightRequestIngester ingester;
+    private final FlightOperations operations;
+    private ExecutorService executorService; // NOPMD - created by start() and shut down by stop()
+    private volatile ServiceWorkerPool servicePool;  // Also read by metrics gauges.
+    private EventJournal journal;
+    private IngestionMode ingestionMode = IngestionMode.MULTIPLEXED_PROCESS;
+    private ServiceMode serviceMode = ServiceMode.WORKER_PROCESS;
+    private int serviceWorkers = ServiceWorkerPool.DEFAULT_CONCURRENCY;
+    private int serviceBays = ServiceBays.DEFAULT_CAPACITY;
+    private ExecutorMode executorMode = ExecutorMode.PLATFORM_THREADS;
+    private long rebalancePeriodMillis = FleetRebalancer.DEFAULT_PERIOD_MILLIS;
+    private int gridWidth = GRID_WIDTH;
+    private int gridHeight = GRID_HEIGHT;
+    private volatile boolean running = false;
+    private volatile long startedNanos = 0;
+    private long requestsReceivedBefore = 0;  // Received before a snapshot was restored.
+    private ShardLayout shardLayout;  // Null unless this simulation is one shard of several.
+    private int shard;
+    private PlaneHandoff handoff;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final MetricsRegistry.Counter conflicts;
+    private final MetricsRegistry.Counter planesHandedOff;
+    private final MetricsRegistry.Counter planesReceived;
+
+    private final FlightRequestRing flightRequestQueue = new FlightRequestRing(FlightRequestRing.DEFAULT_CAPACITY);
+
+    public Simulation(SimulationListener listener)
+    {
+        this(listener, NUM_AIRPORTS, PLANES_PER_AIRPORT, PLANE_SPEED);
+    }
+
+    public Simulation(SimulationListener listener, int numAirports, int planesPerAirport, double planeSpeed)
+    {
+        this(listener, planeSpeed, createAirports(numAirports), planesPerAirport);
+    }
+
+    private Simulation(SimulationListener listener, double planeSpeed, List<Airport> airports, int planesPerAirport)
+    {
+        this(listener, planeSpeed, airports, createFleet(airports, planesPerAirport));
+    }
+
+    /**
+     * Creates a simulation with the given airports and fleet (e.g. restored from a snapshot). The
+     * fleet's planes that are not in flight must already be parked at their airports.
+     */
+    /* default */ Simulation(SimulationListener listener, double planeSpeed, List<Airport> airports, FleetStore fleet)
+    {
+        this.listener = listener;
+        this.planeSpeed = planeSpeed;
+        this.airports.addAll(airports);
+        this.fleet = fleet;
+        for (int i = 0; i < fleet.size(); i++) {
+            planes.add(fleet.get(i));
+        }
+        this.engine = new SimulationEngine(fleet, this);
+        this.dispatcher = new BatchingDispatcher(flightRequestQueue, this);
+        this.airportRegistry = fleet.getAirportRegistry();
+        this.ingester = new FlightRequestIngester(airports.size(), flightRequestQueue, eventLog);
+
+        metrics.gauge("requests-received", () -> getRequestsReceived());
+        metrics.gauge("requests-skipped", () -> ingester.getRequestsSkipped());
+        metrics.gauge("flight-request-queue", () -> flightRequestQueue.size());
+        this.operations = new FlightOperations(new OperationsHost(), airports, airportRegistry, eventLog, metrics);
+        this.conflicts = metrics.counter("conflicts");
+        this.planesHandedOff = metrics.counter("planes-handed-off");
+        this.planesReceived = metrics.counter("planes-received");
+        metrics.gauge("service-pool-queue", () -> (servicePool == null) ? 0 : servicePool.getQueueDepth());
+        metrics.gauge("service-pool-busy", () -> (servicePool == null) ? 0 : servicePool.getBusyWorkers());
+        metrics.gauge("served-per-plane-hour", () -> Math.round(getRequestsServedPerPlaneHour()));
+    }
+
+    private static List<Airport> createAirports(int numAirports)
+    {
+        return createAirports(numAirports, new Random());
+    }
+
+    /**
+     * Places the given number of airports at random, with IDs from 1. The same random sequence
+     * always gives the same layout.
+     */
+    /* default */ static List<Airport> createAirports(int numAirports, Random random)
+    {
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < numAirports; i++) {
+            airports.add(new Airport(i + 1, random.nextInt(GRID_WIDTH), random.nextInt(GRID_HEIGHT)));
+        }
+        return airports;
+    }
+
+    /**
+     * Creates a fleet of 'planesPerAirport' planes at each airport, parked there and in its pool.
+     */
+    /* default */ static FleetStore createFleet(List<Airport> airports, int planesPerAirport)
+    {
+        FleetStore fleet = new FleetStore(new AirportRegistry(airports), airports.size() * planesPerAirport);
+        for (Airport airport : airports) {
+            for (int j = 0; j < planesPerAirport; j++) {
+                airport.releasePlane(fleet.add(airport, airport.getX(), airport.getY()));
+            }
+        }
+        return fleet;
+    }
+
+    @Override
+    public List<Airport> getAirports()
+    {
+        return Collections.unmodifiableList(airports);
+    }
+
+    @Override
+    public List<Plane> getPlanes()
+    {
+        return Collections.unmodifiableList(planes);
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * Sets where flight requests come from. Takes effect from the next call to start().
+     */
+    public void setIngestionMode(IngestionMode ingestionMode)
+    {
+        this.ingestionMode = ingestionMode;
+    }
+
+    /**
+     * Sets how planes are serviced, and the most services that may run at once, across all
+     * airports (i.e. the most service pool threads). Fewer run if there are fewer service bays.
+     * Takes effect from the next call to start().
+     */
+    public void setServiceMode(ServiceMode serviceMode, int serviceWorkers)
+    {
+        if (serviceWorkers < 1) {
+            throw new IllegalArgumentException("Services need at least one service worker");
+        }
+        this.serviceMode = serviceMode;
+        this.serviceWorkers = serviceWorkers;
+    }
+
+    /**
+     * Sets the number of service bays at every airport. Takes effect from the next call to start().
+     */
+    public void setServiceBays(int serviceBays)
+    {
+        if (serviceBays < 1) {
+            throw new IllegalArgumentException("An airport needs at least one service bay");
+        }
+        this.serviceBays = serviceBays;
+    }
+
+    /**
+     * Sets what kind of threads run blocking tasks (reading flight requests, and waiting for
+     * services). Takes effect from the next call to start().
+     */
+    public void setExecutorMode(ExecutorMode executorMode)
+    {
+        this.executorMode = executorMode;
+    }
+
+    /**
+     * Sets the maximum number of threads used to step planes on each tick. Takes effect from the
+     * next call to start().
+     */
+    public void setTickParallelism(int parallelism)
+    {
+        engine.setParallelism(parallelism);
+    }
+
+    /**
+     * Sets how often idle planes are repositioned towards airports with a backlog, or 0 not to
+     * reposition them at all. Takes effect from the next call to start().
+     */
+    public void setRebalancePeriodMillis(long rebalancePeriodMillis)
+    {
+        this.rebalancePeriodMillis = rebalancePeriodMillis;
+    }
+
+    /**
+     * Sets the size of the world that planes fly in, for checking separation. Defaults to
+     * GRID_WIDTH by GRID_HEIGHT. Call before the first start(), which builds the spatial index.
+     */
+    /* default */ void setGridSize(int width, int height)
+    {
+        this.gridWidth = width;
+        this.gridHeight = height;
+    }
+
+    /**
+     * Sets where flight requests come from in the IN_PROCESS ingestion mode (by default, a
+     * FlightRequestGenerator, or null to go back to one). Takes effect from the next call to start().
+     */
+    /* default */ void setTrafficSource(TrafficSource trafficSource)
+    {
+        ingester.setTrafficSource(trafficSource);
+    }
+
+    /**
+     * Makes this simulation the given shard of a sharded one. Only the shard's own airports then
+     * request flights, flights to other shards' airports are given to 'handoff' as they depart,
+     * and the engine is only ticked by calls to tick(). Call before start().
+     */
+    /* default */ void setShard(ShardLayout layout, int shardIndex, PlaneHandoff planeHandoff)
+    {
+        this.shardLayout = layout;
+        this.shard = shardIndex;
+        this.handoff = planeHandoff;
+        ingester.setOrigins(layout.getFirstAirportId(shardIndex) - 1, layout.getAirportCount(shardIndex));
+    }
+
+    /**
+     * Records every subsequent event in the given journal (or stops recording, if null). The
+     * caller remains responsible for closing it. Should be called before start().
+     */
+    public void setJournal(EventJournal journal)
+    {
+        this.journal = journal;
+        engine.setReportingMoves(journal != null);
+    }
+
+    @Override
+    public void start()
+    {
+        if (journal != null) {
+            for (Airport airport : airports) {
+                journal.record(EventJournal.RecordType.AIRPORT, airport.getId(), 0, 0, airport.getX(), airport.getY());
+            }
+            for (Plane plane : planes) {
+                journal.record(EventJournal.RecordType.PLANE, plane.getId(), plane.getAirport().getId(), 0, plane.getX(), plane.getY());
+            }
+            for (Airport airport : airports) {
+                for (DeferredRequest request : airport.getBacklog()) {
+                    journal.record(EventJournal.RecordType.REQUEST_DEFERRED, airport.getId(), request.getDestination().getId(), 0, 0, 0);
+                }
+            }
+        }
+
+        // Built once the world's size is known, and kept (with any planes still in flight) if the
+        // simulation is stopped and started again.
+        if (engine.getSpatialIndex() == null) {
+            engine.setSpatialIndex(new SpatialIndex(fleet, gridWidth, gridHeight, SEPARATION));
+        }
+
+        long now = System.nanoTime();
+        for (Airport airport : airports) {
+            airport.getServiceBays().setCapacity(serviceBays);
+            airport.getServiceBays().resetStats(now);
+        }
+
+        running = true;
+        startedNanos = now;
+        executorService = executorMode.newExecutor();
+        int ownAirports = (shardLayout == null) ? airports.size() : shardLayout.getAirportCount(shard);
+        int totalBays = ownAirports * serviceBays;
+        servicePool = new ServiceWorkerPool(Math.min(totalBays, serviceWorkers), ServiceWorkerPool.DEFAULT_SERVICERS, totalBays,
+                serviceMode, executorMode, this);
+
+        // Planes left waiting for service by an earlier stop() (or snapshot) take their bays.
+        for (Airport airport : airports) {
+            for (ServiceRequest request : airport.getServiceBays().startWaiting(now)) {
+                startService(request);
+            }
+        }
+
+        if (shardLayout == null) {
+            engine.start();
+        }
+
+        executorService.submit(dispatcher::run);
+
+        if (rebalancePeriodMillis > 0) {
+            executorService.submit(() -> {
+                try {
+                    while (running) {
+                        Thread.sleep(rebalancePeriodMillis);
+                        operations.getRebalancer().rebalance();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        ingester.start(ingestionMode, executorService);
+    }
+
+    @Override
+    public void stop()
+    {
+        running = false;
+        engine.stop();
+
+        ingester.stop();
+
+        if (servicePool != null) {
+            // Services that never finished go back to the front of their airports' queues, for a
+            // later start() or snapshot.
+            List<ServiceRequest> unfinished = servicePool.shutdown();
+            long now = System.nanoTime();
+            for (int i = unfinished.size() - 1; i >= 0; i--) {
+                ServiceRequest request = unfinished.get(i);
+                request.getAirport().getServiceBays().requeue(request, now);
+            }
+            operations.servicesAbandoned();
+        }
+
+        if (executorService != null) {
+            executorService.shutdownNow();  // Try to stop all actively executing tasks
+
+            try {
+                if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                    System.err.println("ExecutorService did not terminate");
+                    // Retry to ensure termination
+                    executorService.shutdownNow();
+                    if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+                        System.err.println("ExecutorService failed to terminate");
+                    }
+                }
+            } catch (InterruptedException e) {
+                executorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Dispatches whatever flight requests are queued right now (up to one batch), without waiting.
+     */
+    /* default */ int dispatchBatch()
+    {
+        return dispatcher.dispatchAvailable();
+    }
+
+    /**
+     * Processes one flight request, on the dispatcher thread. Processing a request never blocks
+     * (the flight itself is stepped by the engine), so this is done inline rather than forking a
+     * task per request.
+     */
+    @Override
+    public void request(int originId, int destinationId, long createdNanos)
+    {
+        processFlightRequest(originId, destinationId, createdNanos);
+    }
+
+    @Override
+    public void batchComplete(int size)
+    {
+        eventLog.log(EventType.BATCH_DISPATCHED, size, 0, 0);
+    }
+
+    @Override
+    public EventLog getEventLog()
+    {
+        return eventLog;
+    }
+
+    public BatchingDispatcher getDispatcher()
+    {
+        return dispatcher;
+    }
+
+    /* default */ FlightRequestRing getFlightRequestQueue()
+    {
+        return flightRequestQueue;
+    }
+
+    /**
+     * Completes, straight away and on this thread, every service waiting for a bay, without
+     * running any service process, so that the planes are available again. For measuring the rest
+     * of the pipeline in isolation; only while the simulation is stopped.
+     */
+    /* default */ int completeServicesInstantly()
+    {
+        int completed = 0;
+        for (Airport airport : airports) {
+            List<ServiceRequest> started = airport.getServiceBays().startWaiting(System.nanoTime());
+            while (!started.isEmpty()) {
+                for (ServiceRequest request : started) {
+                    serviceStarted(request);
+                    serviceCompleted(request, "");
+                    completed++;
+                }
+                started = airport.getServiceBays().startWaiting(System.nanoTime());
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Steps every flight once, for a shard ticked by its coordinator. Only one thread should tick
+     * at a time.
+     */
+    /* default */ void tick()
+    {
+        engine.tick();
+    }
+
+    /**
+     * Takes over a plane handed off by another shard, and flies it to its destination (which must
+     * be one of this shard's airports) from the next tick.
+     */
+    /* default */ void receivePlane(PlaneTransfer transfer)
+    {
+        Plane plane = fleet.get(transfer.getPlaneIndex());
+        Airport origin = airportRegistry.get(transfer.getOriginId());
+        planesReceived.increment();
+        plane.setAirport(origin);
+        plane.setPosition(origin.getX(), origin.getY());
+        operations.fly(plane, origin, airportRegistry.get(transfer.getDestinationId()), transfer.getRequestedNanos(), false);
+    }
+
+    /* default */ SimulationEngine getEngine()
+    {
+        return engine;
+    }
+
+    /**
+     * Sets the counters of a restored simulation. Call after re-queueing its flights and requests.
+     */
+    /* default */ void restoreCounters(int completedTrips, int requestsDispatched, int invalidRequests,
+                                       int servicesCompleted, long requestsReceived)
+    {
+        operations.restoreCounters(engine.getFlyingPlanes().size(), completedTrips, requestsDispatched, invalidRequests, servicesCompleted);
+        this.requestsReceivedBefore = requestsReceived - ingester.getRequestsReceived();
+    }
+
+    /* default */ FleetStore getFleet()
+    {
+        return fleet;
+    }
+
+    /* default */ double getPlaneSpeed()
+    {
+        return planeSpeed;
+    }
+
+    /* default */ static Process exec(String command, String... args) throws IOException
+    {
+        String os = System.getProperty("os.name").toLowerCase();
+        String[] cmdLine = new String[args.length + 1];
+        cmdLine[0] = os.contains("win") ? command + ".bat" : command;
+        System.arraycopy(args, 0, cmdLine, 1, args.length);
+        return Runtime.getRuntime().exec(cmdLine);
+    }
+
+    /**
+     * Starts a new JVM, with the same Java installation and classpath as this one, running the
+     * main() method of the given class. Its standard error goes to ours.
+     */
+    /* default */ static Process execJava(Class<?> mainClass, String... args) throws IOException
+    {
+        List<String> cmdLine = new ArrayList<>();
+        cmdLine.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmdLine.add("-cp");
+        cmdLine.add(System.getProperty("java.class.path"));
+        cmdLine.add(mainClass.getName());
+        cmdLine.addAll(Arrays.asList(args));
+        return new ProcessBuilder(cmdLine).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    /* default */ void processFlightRequest(int originId, int destinationId, long createdNanos)
+    {
+        operations.request(originId, destinationId, createdNanos);
+    }
+
+    @Override
+    public void flightMoved(Plane plane)
+    {
+        if (journal != null) {
+            journal.record(EventJournal.RecordType.PLANE_STEPPED, plane.getId(), 0, 0, plane.getX(), plane.getY());
+        }
+    }
+
+    @Override
+    public void flightLanded(Plane plane)
+    {
+        operations.landed(plane, plane.getDestination(), plane.getRequestedNanos(), plane.getDepartedNanos(), plane.isEmptyLeg());
+    }
+
+    /**
+     * Hands a service that has just been given a bay to the service pool, which starts it once a
+     * worker is free (see serviceStarted()).
+     */
+    private void startService(ServiceRequest request)
+    {
+        ServiceWorkerPool pool = servicePool;
+        if (!running || pool == null || !pool.offer(request)) {
+            // Stopping (or stopped): give the bay back, and start it again on the next start().
+            request.getAirport().getServiceBays().requeue(request, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void conflictDetected(Plane first, Plane second)
+    {
+        conflicts.increment();
+        eventLog.log(EventType.SEPARATION_CONFLICT, first.getId(), second.getId(), 0);
+        if (journal != null) {
+            journal.record(EventJournal.RecordType.CONFLICT, first.getId(), second.getId(), 0, first.getX(), first.getY());
+        }
+    }
+
+    @Override
+    public void tickCompleted(long tick)
+    {
+        recordInJournal(EventJournal.RecordType.TICK, (int) tick, 0, 0);
+        listener.tickCompleted(tick);
+    }
+
+    @Override
+    public void serviceStarted(ServiceRequest request)
+    {
+        operations.serviceStarted(request);
+    }
+
+    @Override
+    public void serviceCompleted(ServiceRequest request, String message)
+    {
+        operations.serviceCompleted(request, message);
+    }
+
+    @Override
+    public void serviceFailed(ServiceRequest request, IOException e)
+    {
+        operations.serviceFailed(request, e);
+    }
+
+    private void recordInJournal(EventJournal.RecordType type, int a, int b, int c)
+    {
+        if (journal != null) {
+            journal.record(type, a, b, c);
+        }
+    }
+
+    public ServiceWorkerPool getServicePool()
+    {
+        return servicePool;
+    }
+
+    /* default */ Plane findAvailablePlane(Airport airport)
+    {
+        return operations.findAvailablePlane(airport);
+    }
+
+    @Override
+    public String getStatusText()
+    {
+        return operations.getStatusText();
+    }
+
+    public int getInFlight()
+    {
+        return (int) operations.getInFlight();
+    }
+
+    public int getUndergoingService()
+    {
+        return (int) operations.getUndergoingService();
+    }
+
+    public int getCompletedTrips()
+    {
+        return (int) operations.getCompletedTrips();
+    }
+
+    public long getRequestsReceived()
+    {
+        return requestsReceivedBefore + ingester.getRequestsReceived();
+    }
+
+    public int getRequestsDispatched()
+    {
+        return (int) operations.getRequestsDispatched();
+    }
+
+    public int getInvalidRequests()
+    {
+        return (int) operations.getInvalidRequests();
+    }
+
+    public AirportRegistry getAirportRegistry()
+    {
+        return airportRegistry;
+    }
+
+    /**
+     * Returns the number of flight requests waiting for a plane, over all airports.
+     */
+    /* default */ int getBacklogSize()
+    {
+        return operations.getBacklogSize();
+    }
+
+    /**
+     * Returns the flight requests served per hour by each plane, on average, since start().
+     */
+    /* default */ double getRequestsServedPerPlaneHour()
+    {
+        long started = startedNanos;
+        double hours = (System.nanoTime() - started) / 3.6e12;
+        if (started == 0 || hours <= 0.0 || planes.isEmpty()) {
+            return 0.0;
+        }
+        return operations.getRequestsServed() / (planes.size() * hours);
+    }
+
+    public int getServicesCompleted()
+    {
+        return (int) operations.getServicesCompleted();
+    }
+
+    /**
+     * Returns the total number of separation conflicts found (counting a pair again on each tick
+     * that they remain in conflict).
+     */
+    public int getConflicts()
+    {
+        return (int) conflicts.get();
+    }
+
+    /**
+     * Returns the index of flying planes' positions, or null before the first start(). Tick thread
+     * only (e.g. from a listener's tickCompleted()).
+     */
+    public SpatialIndex getSpatialIndex()
+    {
+        return engine.getSpatialIndex();
+    }
+
+    /**
+     * Returns the simulation's counters, queue-depth gauges and latency histograms.
+     */
+    public MetricsRegistry getMetrics()
+    {
+        return metrics;
+    }
+
+    public LatencyHistogram getAllocationLatency()
+    {
+        return operations.getAllocationLatency();
+    }
+
+    public LatencyHistogram getFlightLatency()
+    {
+        return operations.getFlightLatency();
+    }
+
+    public LatencyHistogram getTripLatency()
+    {
+        return operations.getTripLatency();
+    }
+
+    public LatencyHistogram getServiceLatency()
+    {
+        return operations.getServiceLatency();
+    }
+
+    public LatencyHistogram getEndToEndLatency()
+    {
+        return operations.getEndToEndLatency();
+    }
+
+    /**
+     * Runs the model's flights on the engine and its services on the service pool, in real time.
+     */
+    private final class OperationsHost implements FlightOperations.Host
+    {
+        @Override
+        public long now()
+        {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void fly(Plane plane, Airport origin, Airport destination, long requestedNanos, boolean emptyLeg)
+        {
+            fleet.setEmptyLeg(plane.getIndex(), emptyLeg);
+            fleet.beginLeg(plane.getIndex(), destination, planeSpeed, requestedNanos);
+            engine.launch(plane);
+        }
+
+        @Override
+        public boolean handOff(Plane plane, Airport origin, Airport destination, long requestedNanos)
+        {
+            if (shardLayout == null || shardLayout.getShard(destination.getId()) == shard) {
+                return false;
+            }
+            fleet.setStatus(plane.getIndex(), FleetStore.REMOTE);
+            planesHandedOff.increment();
+            handoff.handOff(plane, origin, destination, requestedNanos);
+            return true;
+        }
+
+        @Override
+        public void startService(ServiceRequest request)
+        {
+            Simulation.this.startService(request);
+        }
+
+        @Override
+        public void record(EventJournal.RecordType type, int a, int b, int c, double x, double y)
+        {
+            if (journal != null) {
+                journal.record(type, a, b, c, x, y);
+            }
+        }
+
+        @Override
+        public void statisticsChanged()
+        {
+            listener.statisticsChanged();
+        }
+    }
+}
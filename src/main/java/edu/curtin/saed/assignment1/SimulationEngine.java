@@ -0,0 +1,297 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-timestep simulation engine. A single tick thread advances every active flight by one step
+ * every TICK_MILLIS, so the number of threads does not depend on the number of planes in the air.
+ * Flight state lives in a FleetStore, and the planes in the air are kept as a dense array of plane
+ * indices, so a tick is a tight sweep over primitive arrays.
+ *
+ * Planes may be launched from any thread; they are picked up at the start of the next tick.
+ *
+ * With enough planes in the air, the stepping itself is split into chunks and run on a ForkJoinPool.
+ * Every plane's step is independent, and the tick waits for all chunks to finish before dealing
+ * with landings, in the order the planes appear in the active array, on the tick thread. So the
+ * outcome of a tick does not depend on how many threads stepped it.
+ *
+ * If given a SpatialIndex, the engine keeps it up to date with every flying plane's position, and
+ * runs a separation-conflict check over it at the end of every tick. With enough planes in the
+ * air, the check is split between the same ForkJoinPool's threads.
+ */
+public class SimulationEngine
+{
+    public static final long TICK_MILLIS = 100;
+
+    /** The number of planes stepped by one ForkJoin task. */
+    /* default */ static final int CHUNK_SIZE = 16_384;
+
+    private final FleetStore fleet;
+    private final FlightListener listener;
+    private final Queue<Plane> launches = new ConcurrentLinkedQueue<>();
+    private final int[] active;
+    private final boolean[] landed;  // Parallel to 'active', for the current tick.
+    private int activeSize = 0;
+    private boolean reportingMoves = false;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool stepPool;  // Created when first needed.
+    private SpatialIndex spatialIndex;
+    private final SpatialIndex.ConflictHandler conflictHandler;
+    private volatile int lastConflictCount = 0;
+    private ScheduledExecutorService ticker;
+    private long tickCount = 0;
+    private volatile int activeCount = 0;
+    private volatile long lastTickNanos = 0;
+
+    /**
+     * Creates an engine for the given fleet, which must already contain all its planes.
+     */
+    public SimulationEngine(FleetStore fleet, FlightListener listener)
+    {
+        this.fleet = fleet;
+        this.listener = listener;
+        this.active = new int[fleet.size()];
+        this.landed = new boolean[fleet.size()];
+        this.conflictHandler = (first, second) -> listener.conflictDetected(fleet.get(first), fleet.get(second));
+    }
+
+    public void start()
+    {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulation-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop()
+    {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            try {
+                if (!ticker.awaitTermination(5, TimeUnit.SECONDS)) {
+                    System.err.println("Simulation tick thread did not terminate");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ticker = null;
+        }
+        if (stepPool != null) {
+            stepPool.shutdown();
+            stepPool = null;
+        }
+    }
+
+    /**
+     * Sets the maximum number of threads used to step planes (1 to step them all on the tick
+     * thread). Defaults to the number of available processors. Call before start().
+     */
+    public void setParallelism(int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        if (stepPool != null) {
+            stepPool.shutdown();
+            stepPool = null;
+        }
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * Sets whether the listener's flightMoved() is called for every step. This is off by default,
+     * since it means touching every flying plane's handle on every tick. Call before start().
+     */
+    public void setReportingMoves(boolean reportingMoves)
+    {
+        this.reportingMoves = reportingMoves;
+    }
+
+    /**
+     * Sets the spatial index to maintain and check for conflicts (or null for none). It must be
+     * for this engine's fleet, and empty. Call before start().
+     */
+    public void setSpatialIndex(SpatialIndex spatialIndex)
+    {
+        this.spatialIndex = spatialIndex;
+    }
+
+    public SpatialIndex getSpatialIndex()
+    {
+        return spatialIndex;
+    }
+
+    /**
+     * Queues a plane to start moving on the next tick. Its leg must already have been set in the
+     * fleet store (by the launching thread, before calling this). Safe to call from any thread.
+     */
+    public void launch(Plane plane)
+    {
+        launches.add(plane);
+    }
+
+    /**
+     * Advances every active flight by one step. Normally called by the tick thread, but may also be
+     * called directly (e.g. from benchmarks) as long as only one thread does so at a time.
+     */
+    public void tick()
+    {
+        long startTime = System.nanoTime();
+
+        Plane launched;
+        while ((launched = launches.poll()) != null) {
+            active[activeSize++] = launched.getIndex();
+            if (spatialIndex != null) {
+                spatialIndex.insert(launched.getIndex());
+            }
+        }
+
+        int landings;
+        if (parallelism > 1 && activeSize > CHUNK_SIZE) {
+            landings = getStepPool().invoke(new StepTask(0, activeSize));
+        } else {
+            landings = stepRange(0, activeSize);
+        }
+
+        if (landings > 0 || reportingMoves || spatialIndex != null) {
+            settle();
+        }
+        if (spatialIndex != null) {
+            ForkJoinPool pool = (parallelism > 1 && spatialIndex.size() >= SpatialIndex.PARALLEL_THRESHOLD) ? getStepPool() : null;
+            lastConflictCount = spatialIndex.detectConflicts(conflictHandler, pool);
+        }
+
+        tickCount++;
+        activeCount = activeSize;
+        listener.tickCompleted(tickCount);
+        lastTickNanos = System.nanoTime() - startTime;
+    }
+
+    private ForkJoinPool getStepPool()
+    {
+        if (stepPool == null) {
+            stepPool = new ForkJoinPool(parallelism);
+        }
+        return stepPool;
+    }
+
+    /**
+     * Steps the planes at active[from .. to - 1], flagging those that land, and returns how many
+     * did.
+     */
+    private int stepRange(int from, int to)
+    {
+        int landings = 0;
+        for (int i = from; i < to; i++) {
+            boolean arrived = fleet.step(active[i]);
+            landed[i] = arrived;
+            if (arrived) {
+                landings++;
+            }
+        }
+        return landings;
+    }
+
+    /**
+     * Removes landed planes from the active array (keeping the rest in order), updates the spatial
+     * index, and reports landings and moves to the listener in that same order.
+     */
+    private void settle()
+    {
+        int kept = 0;
+        for (int i = 0; i < activeSize; i++) {
+            int index = active[i];
+            if (landed[i]) {
+                if (spatialIndex != null) {
+                    spatialIndex.remove(index);
+                }
+                listener.flightLanded(fleet.get(index));
+            } else {
+                if (spatialIndex != null) {
+                    spatialIndex.update(index);
+                }
+                if (reportingMoves) {
+                    listener.flightMoved(fleet.get(index));
+                }
+                active[kept] = index;
+                kept++;
+            }
+        }
+        activeSize = kept;
+    }
+
+    /**
+     * Steps a range of the active array, splitting it in half until it is at most CHUNK_SIZE.
+     */
+    private final class StepTask extends RecursiveTask<Integer>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        /* default */ StepTask(int from, int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute()
+        {
+            if (to - from <= CHUNK_SIZE) {
+                return stepRange(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            StepTask left = new StepTask(from, middle);
+            left.fork();
+            int rightLandings = new StepTask(middle, to).compute();
+            return left.join() + rightLandings;
+        }
+    }
+
+    /**
+     * Returns every plane in flight or waiting to launch. Only valid while the engine is stopped.
+     */
+    public List<Plane> getFlyingPlanes()
+    {
+        List<Plane> planes = new ArrayList<>(launches);
+        for (int i = 0; i < activeSize; i++) {
+            planes.add(fleet.get(active[i]));
+        }
+        return planes;
+    }
+
+    public int getActiveCount()
+    {
+        return activeCount;
+    }
+
+    /**
+     * Returns the number of conflicts found on the most recent tick.
+     */
+    public int getLastConflictCount()
+    {
+        return lastConflictCount;
+    }
+
+    public long getLastTickNanos()
+    {
+        return lastTickNanos;
+    }
+}
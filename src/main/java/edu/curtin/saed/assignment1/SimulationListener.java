@@ -0,0 +1,17 @@
+package edu.curtin.saed.assignment1;
+
+/**
+ * Receives notifications from a Simulation. Methods may be called from any simulation thread,
+ * so a GUI implementation must hand off to its own thread. (Individual events are not reported
+ * here; they are written to the simulation's EventLog, for the listener to read when it likes.)
+ */
+public interface SimulationListener
+{
+    void statisticsChanged();
+
+    /**
+     * Called on the tick thread after every flight has been stepped; plane positions are stable
+     * for the duration of the call.
+     */
+    void tickCompleted(long tick);
+}
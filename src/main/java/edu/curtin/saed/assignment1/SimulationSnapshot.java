@@ -0,0 +1,238 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves the complete state of a stopped Simulation to a compact binary file, and restores it, so
+ * that a long or heavily-loaded run can be checkpointed and later resumed where it left off
+ * without re-creating (and re-warming) its traffic.
+ *
+ * A snapshot holds the airports, every plane (position, whether it is in flight, and its current
+ * leg), the queued flight requests, each airport's backlog and queue of planes waiting for service,
+ * and the counters. Latency samples and the event
+ * log are not included. Timestamps are stored as ages, so latencies measured after a restore
+ * exclude the time spent saved.
+ *
+ * The file is a fixed header followed by counted sections of fixed-width big-endian fields, and is
+ * read back in a single pass over an in-memory buffer.
+ */
+public class SimulationSnapshot
+{
+    private static final int MAGIC = 0x53414544;  // "SAED"
+    // Version 1 had no empty legs or backlogs, and before version 3, planes waiting for service
+    // were already available. Both can still be read.
+    private static final int VERSION = 3;
+
+    /**
+     * Writes a snapshot of the given simulation, which must not be running.
+     */
+    public static void save(Simulation simulation, Path file) throws IOException
+    {
+        if (simulation.isRunning()) {
+            throw new IllegalStateException("Cannot snapshot a running simulation; stop it first");
+        }
+        long now = System.nanoTime();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeDouble(simulation.getPlaneSpeed());
+            out.writeInt(simulation.getCompletedTrips());
+            out.writeInt(simulation.getRequestsDispatched());
+            out.writeInt(simulation.getInvalidRequests());
+            out.writeInt(simulation.getServicesCompleted());
+            out.writeLong(simulation.getRequestsReceived());
+
+            List<Airport> airports = simulation.getAirports();
+            out.writeInt(airports.size());
+            for (Airport airport : airports) {
+                out.writeInt(airport.getId());
+                out.writeInt(airport.getX());
+                out.writeInt(airport.getY());
+            }
+
+            List<Plane> planes = simulation.getPlanes();
+            out.writeInt(planes.size());
+            for (Plane plane : planes) {
+                out.writeInt(plane.getId());
+                out.writeInt(plane.getAirport().getId());
+                out.writeDouble(plane.getX());
+                out.writeDouble(plane.getY());
+                out.writeBoolean(!plane.isAvailable());
+            }
+
+            FleetStore fleet = simulation.getFleet();
+            List<Plane> flying = simulation.getEngine().getFlyingPlanes();
+            out.writeInt(flying.size());
+            for (Plane plane : flying) {
+                int index = plane.getIndex();
+                out.writeInt(plane.getId());
+                out.writeInt(plane.getAirport().getId());
+                out.writeInt(plane.getDestination().getId());
+                out.writeDouble(fleet.getStepX(index));
+                out.writeDouble(fleet.getStepY(index));
+                out.writeInt(fleet.getRemainingSteps(index));
+                out.writeLong(now - plane.getRequestedNanos());
+                out.writeBoolean(plane.isEmptyLeg());
+            }
+
+            // Collected first, since the handler can't throw IOException.
+            List<long[]> requests = new ArrayList<>();
+            simulation.getFlightRequestQueue().forEachQueued(
+                    (originId, destinationId, createdNanos) -> requests.add(new long[] {originId, destinationId, now - createdNanos}));
+            out.writeInt(requests.size());
+            for (long[] request : requests) {
+                out.writeInt((int) request[0]);
+                out.writeInt((int) request[1]);
+                out.writeLong(request[2]);
+            }
+
+            List<ServiceRequest> services = new ArrayList<>();
+            for (Airport airport : airports) {
+                services.addAll(airport.getServiceBays().getWaiting());
+            }
+            out.writeInt(services.size());
+            for (ServiceRequest service : services) {
+                out.writeInt(service.getAirport().getId());
+                out.writeInt(service.getPlane().getId());
+                out.writeLong(now - service.getCreatedNanos());
+            }
+
+            for (Airport airport : airports) {
+                List<DeferredRequest> backlog = airport.getBacklog();
+                out.writeInt(backlog.size());
+                for (DeferredRequest request : backlog) {
+                    out.writeInt(request.getDestination().getId());
+                    out.writeLong(now - request.getRequestedNanos());
+                    out.writeLong(now - request.getDeferredNanos());
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new (stopped) simulation from a snapshot file, reporting to the given listener.
+     */
+    public static Simulation restore(SimulationListener listener, Path file) throws IOException
+    {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        long now = System.nanoTime();
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException(file + " is not a simulation snapshot");
+            }
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            double planeSpeed = in.getDouble();
+            int completedTrips = in.getInt();
+            int requestsDispatched = in.getInt();
+            int invalidRequests = in.getInt();
+            int servicesCompleted = in.getInt();
+            long requestsReceived = in.getLong();
+
+            int airportCount = in.getInt();
+            List<Airport> airports = new ArrayList<>(airportCount);
+            for (int i = 0; i < airportCount; i++) {
+                airports.add(new Airport(in.getInt(), in.getInt(), in.getInt()));
+            }
+            AirportRegistry registry = new AirportRegistry(airports);
+
+            int planeCount = in.getInt();
+            FleetStore fleet = new FleetStore(registry, planeCount);
+            for (int i = 0; i < planeCount; i++) {
+                int id = in.getInt();
+                Airport airport = lookup(registry, in.getInt());
+                Plane plane = fleet.add(airport, in.getDouble(), in.getDouble());
+                if (plane.getId() != id) {
+                    throw new IOException("Snapshot planes are not in ID order");
+                }
+                boolean inFlight = in.get() != 0;
+                plane.setInFlight(inFlight);
+                if (!inFlight) {
+                    airport.releasePlane(plane);
+                }
+            }
+
+            Simulation simulation = new Simulation(listener, planeSpeed, airports, fleet);
+
+            int flightCount = in.getInt();
+            for (int i = 0; i < flightCount; i++) {
+                Plane plane = lookup(fleet, in.getInt());
+                plane.setAirport(lookup(registry, in.getInt()));
+                Airport destination = lookup(registry, in.getInt());
+                double stepX = in.getDouble();
+                double stepY = in.getDouble();
+                int steps = in.getInt();
+                long requested = now - in.getLong();
+                fleet.setEmptyLeg(plane.getIndex(), version >= 2 && in.get() != 0);
+                fleet.resumeLeg(plane.getIndex(), destination, stepX, stepY, steps, requested);
+                simulation.getEngine().launch(plane);
+            }
+
+            int requestCount = in.getInt();
+            FlightRequestRing ring = simulation.getFlightRequestQueue();
+            for (int i = 0; i < requestCount; i++) {
+                if (!ring.offer(in.getInt(), in.getInt(), now - in.getLong())) {
+                    throw new IOException("Snapshot has more queued flight requests than the queue can hold");
+                }
+            }
+
+            int serviceCount = in.getInt();
+            for (int i = 0; i < serviceCount; i++) {
+                Airport airport = lookup(registry, in.getInt());
+                Plane plane = lookup(fleet, in.getInt());
+                long created = now - in.getLong();
+                if (version >= 3) {
+                    plane.setServicing();
+                    airport.getServiceBays().enqueue(new ServiceRequest(airport, plane, created));
+                }
+            }
+
+            if (version >= 2) {
+                for (Airport airport : airports) {
+                    int backlogSize = in.getInt();
+                    for (int i = 0; i < backlogSize; i++) {
+                        Airport destination = lookup(registry, in.getInt());
+                        airport.defer(new DeferredRequest(destination, now - in.getLong(), now - in.getLong()));
+                    }
+                }
+            }
+
+            simulation.restoreCounters(completedTrips, requestsDispatched, invalidRequests, servicesCompleted, requestsReceived);
+            return simulation;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt snapshot " + file, e);
+        }
+    }
+
+    private static Airport lookup(AirportRegistry registry, int id) throws IOException
+    {
+        Airport airport = registry.get(id);
+        if (airport == null) {
+            throw new IOException("Snapshot refers to unknown airport " + id);
+        }
+        return airport;
+    }
+
+    private static Plane lookup(FleetStore fleet, int id) throws IOException
+    {
+        if (id < 1 || id > fleet.size()) {
+            throw new IOException("Snapshot refers to unknown plane " + id);
+        }
+        return fleet.get(id - 1);
+    }
+
+    private SimulationSnapshot()
+    {
+    }
+}
@@ -0,0 +1,632 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform grid over the simulated area, recording which cell each flying plane is in, for
+ * proximity queries and separation-conflict detection without comparing every pair of planes. Cells
+ * are at least the separation distance across, so any two planes in conflict are in the same or
+ * adjacent cells. They are usually exactly that size, but in a large world they are made bigger,
+ * so that there are at most MAX_CELLS_PER_PLANE cells for each plane in the fleet (or MIN_CELLS,
+ * for a small fleet). Rebuilding the layout visits every cell, so this keeps its cost in proportion
+ * to the fleet, whatever the size of the world.
+ *
+ * Cell membership is kept up to date incrementally: each plane's cell is recomputed as it moves,
+ * which is O(1) and touches nothing else. Queries then use a cell-ordered layout of the indexed
+ * planes (a counting sort by cell into flat arrays of plane indices and coordinates), rebuilt at
+ * most once between changes. The conflict check is then a sweep along contiguous memory, rather
+ * than a chase through planes scattered across the fleet's arrays. Each rebuild starts from the
+ * previous layout's order, which planes only drift away from a little at a time, so it too mostly
+ * writes memory in sequence.
+ *
+ * With enough planes, the rebuild and the conflict check can be split between the threads of a
+ * ForkJoinPool (the engine's). The rebuild first groups the planes into bands of rows, chunk by
+ * chunk, and then sorts each band's planes into its own cells; the conflict check sweeps chunks of
+ * the layout, and reports each chunk's pairs afterwards. Both keep everything in the same order as
+ * a single thread would, so the layout and the order of conflicts don't depend on the threads.
+ *
+ * The index is maintained and queried by the engine's tick thread only.
+ */
+public class SpatialIndex
+{
+    private static final int NONE = -1;
+
+    /** The most cells there may be for each plane in the fleet. */
+    public static final int MAX_CELLS_PER_PLANE = 4;
+
+    /** The number of cells always allowed, even for a fleet too small to need that many. */
+    public static final int MIN_CELLS = 1024;
+
+    /** How much bigger cells get at a time, while there are too many of them. */
+    private static final double CELL_GROWTH = 1.05;
+
+    /** How many conflicting pairs are collected before they are passed to the handler. */
+    private static final int PAIR_BATCH = 4096;
+
+    /** The fewest planes worth splitting the work between threads for. */
+    public static final int PARALLEL_THRESHOLD = 16_384;
+
+    /** The number of planes (or layout positions) handled by one parallel task. */
+    private static final int PARALLEL_CHUNK = 8192;
+
+    /** The number of bands of rows per thread in a parallel rebuild, so that they even out. */
+    private static final int BANDS_PER_THREAD = 4;
+
+    /**
+     * Receives each pair of planes (by index) found closer than the separation distance.
+     */
+    public interface ConflictHandler
+    {
+        void conflict(int firstIndex, int secondIndex);
+    }
+
+    private final FleetStore fleet;
+    private final double separation;
+    private final double cellSize;
+    private final double separationSquared;
+    private final int columns;
+    private final int rows;
+    private final int[] cells;          // By plane index; NONE if not indexed.
+    private final boolean[] listed;     // By plane index; whether it is in sortedPlanes or inserted.
+    private final int[] inserted;       // Planes to add to the layout when it is next built.
+    private int insertedCount = 0;
+    private int size = 0;
+
+    // The cell-ordered layout: the planes in cell c are at [cellStarts[c], cellStarts[c + 1]).
+    private final int[] cellStarts;
+    private int[] sortedPlanes;
+    private int[] previousPlanes;       // Spare array, for building the next layout.
+    private final int[] bucketed;       // Planes grouped by band, in a parallel rebuild.
+    private int sortedCount = 0;
+    private final int[] sortedCells;
+    private final double[] sortedX;
+    private final double[] sortedY;
+    private boolean sorted = true;
+
+    private final PairBuffer pairs = new PairBuffer();
+    private final List<PairBuffer> chunkPairs = new ArrayList<>();  // For a parallel check.
+
+    /**
+     * Creates an index over [0, width] x [0, height] (positions outside it are clamped to the edge
+     * cells) for the given fleet, with cells the size of the separation distance, or bigger if
+     * the world would otherwise need too many of them.
+     */
+    public SpatialIndex(FleetStore fleet, double width, double height, double separation)
+    {
+        if (separation <= 0.0) {
+            throw new IllegalArgumentException("Separation must be positive");
+        }
+        int capacity = fleet.size();
+        this.fleet = fleet;
+        this.separation = separation;
+        this.separationSquared = separation * separation;
+
+        long maxCells = Math.max(MIN_CELLS, (long) capacity * MAX_CELLS_PER_PLANE);
+        double size = separation;
+        if (cellCount(width, height, size) > maxCells) {
+            // Start from the size that would just fit, ignoring the extra column and row and the
+            // rounding, and then make up for those.
+            size = Math.max(separation, Math.sqrt(width * height / maxCells));
+            while (cellCount(width, height, size) > maxCells) {
+                size *= CELL_GROWTH;
+            }
+        }
+        this.cellSize = size;
+        this.columns = (int) Math.ceil(width / size) + 2;
+        this.rows = (int) Math.ceil(height / size) + 2;
+
+        this.cells = new int[capacity];
+        Arrays.fill(cells, NONE);
+        this.listed = new boolean[capacity];
+        this.inserted = new int[capacity];
+        this.cellStarts = new int[columns * rows + 1];
+        this.sortedPlanes = new int[capacity];
+        this.previousPlanes = new int[capacity];
+        this.bucketed = new int[capacity];
+        this.sortedCells = new int[capacity];
+        this.sortedX = new double[capacity];
+        this.sortedY = new double[capacity];
+    }
+
+    /**
+     * Returns the number of cells across [0, width] x [0, height] with the given cell size,
+     * including one more column and row than the area needs, always empty, so that every cell has
+     * neighbours to the right and below and the conflict check needs no edge cases.
+     */
+    private static long cellCount(double width, double height, double size)
+    {
+        return ((long) Math.ceil(width / size) + 2) * ((long) Math.ceil(height / size) + 2);
+    }
+
+    public double getSeparation()
+    {
+        return separation;
+    }
+
+    /**
+     * Returns the width (and height) of each cell, which is at least the separation distance.
+     */
+    public double getCellSize()
+    {
+        return cellSize;
+    }
+
+    /**
+     * Returns the number of cells in the grid, including the always-empty extra column and row.
+     */
+    public int getCellCount()
+    {
+        return columns * rows;
+    }
+
+    /**
+     * Returns the number of planes in the index.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean contains(int index)
+    {
+        return cells[index] != NONE;
+    }
+
+    /**
+     * Adds a plane (which must not already be in the index) at its current position.
+     */
+    public void insert(int index)
+    {
+        cells[index] = cellOf(fleet.getX(index), fleet.getY(index));
+        if (!listed[index]) {
+            inserted[insertedCount++] = index;
+            listed[index] = true;
+        }
+        size++;
+        sorted = false;
+    }
+
+    /**
+     * Removes a plane, which must be in the index.
+     */
+    public void remove(int index)
+    {
+        cells[index] = NONE;
+        size--;
+        sorted = false;
+    }
+
+    /**
+     * Records a plane's new position (which may or may not have put it in a different cell).
+     */
+    public void update(int index)
+    {
+        cells[index] = cellOf(fleet.getX(index), fleet.getY(index));
+        sorted = false;
+    }
+
+    /**
+     * Returns the planes within 'radius' of (x, y).
+     */
+    public List<Plane> findWithin(double x, double y, double radius)
+    {
+        sort();
+        List<Plane> found = new ArrayList<>();
+        double radiusSquared = radius * radius;
+        int minColumn = column(x - radius);
+        int maxColumn = column(x + radius);
+        int minRow = row(y - radius);
+        int maxRow = row(y + radius);
+
+        for (int r = minRow; r <= maxRow; r++) {
+            // The cells of one row are contiguous, and so are their planes.
+            int end = cellStarts[r * columns + maxColumn + 1];
+            for (int i = cellStarts[r * columns + minColumn]; i < end; i++) {
+                double dx = sortedX[i] - x;
+                double dy = sortedY[i] - y;
+                if (dx * dx + dy * dy <= radiusSquared) {
+                    found.add(fleet.get(sortedPlanes[i]));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds every pair of indexed planes closer than the separation distance, passing each pair to
+     * the handler once, and returns how many there were. Pairs are found in cell order, so the
+     * result is deterministic for a given sequence of changes to the index.
+     */
+    public int detectConflicts(ConflictHandler handler)
+    {
+        sort();
+        pairs.reset(handler);
+        sweep(0, sortedCount, pairs);
+        return pairs.total;
+    }
+
+    /**
+     * Finds conflicts as detectConflicts(handler) does, but with the rebuild and the check split
+     * between the given pool's threads if there are at least PARALLEL_THRESHOLD planes. The pairs
+     * are still passed to the handler on this thread, in the same order.
+     */
+    public int detectConflicts(ConflictHandler handler, ForkJoinPool pool)
+    {
+        if (pool == null || size < PARALLEL_THRESHOLD) {
+            return detectConflicts(handler);
+        }
+        sortInParallel(pool);
+
+        int chunks = (sortedCount + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        while (chunkPairs.size() < chunks) {
+            chunkPairs.add(new PairBuffer());
+        }
+        pool.invoke(new ForEachPart(0, chunks, chunk -> {
+            PairBuffer out = chunkPairs.get(chunk);
+            out.reset(null);
+            sweep(chunk * PARALLEL_CHUNK, Math.min((chunk + 1) * PARALLEL_CHUNK, sortedCount), out);
+        }));
+
+        int conflicts = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            conflicts += chunkPairs.get(chunk).reportKept(handler);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Finds the conflicts of the planes at layout positions [from, to), adding them to 'out'.
+     *
+     * Each plane is compared only with the planes after it in its own cell and the cell to its
+     * right (one contiguous run), and with those in the three cells below (another), so each pair
+     * is examined once. The comparisons record conflicts without branching on the outcome, which
+     * is unpredictable in dense traffic; the conflicting pairs are flushed in batches afterwards.
+     */
+    private void sweep(int from, int to, PairBuffer out)
+    {
+        int[] starts = cellStarts;
+        double[] xs = sortedX;
+        double[] ys = sortedY;
+        int[] firsts = out.firsts;
+        int[] seconds = out.seconds;
+        double limit = separationSquared;
+        int pairCount = out.count;
+
+        for (int i = from; i < to; i++) {
+            int cell = sortedCells[i];
+            int rightEnd = starts[cell + 2];
+            int belowStart = starts[cell + columns - 1];
+            int belowEnd = starts[cell + columns + 2];
+
+            // Both runs as one loop, with one exit.
+            int rightCount = rightEnd - i - 1;
+            int count = rightCount + belowEnd - belowStart;
+            int skip = belowStart - rightEnd;
+            if (pairCount + count > PAIR_BATCH) {
+                out.count = pairCount;
+                out.flush();
+                pairCount = 0;
+                if (count > PAIR_BATCH) {
+                    // Only with many planes piled into a few cells (e.g. all at one airport).
+                    scanCrowded(i, i + 1, rightEnd, out);
+                    scanCrowded(i, belowStart, belowEnd, out);
+                    pairCount = out.count;
+                    continue;
+                }
+            }
+
+            double x = xs[i];
+            double y = ys[i];
+            for (int k = 0; k < count; k++) {
+                int j = i + 1 + k + (k < rightCount ? 0 : skip);
+                double dx = xs[j] - x;
+                double dy = ys[j] - y;
+                firsts[pairCount] = i;
+                seconds[pairCount] = j;
+                pairCount += (dx * dx + dy * dy < limit) ? 1 : 0;
+            }
+        }
+        out.count = pairCount;
+        out.flush();
+    }
+
+    /**
+     * Compares the plane at position i with those at [from, to), one pair at a time.
+     */
+    private void scanCrowded(int i, int from, int to, PairBuffer out)
+    {
+        for (int j = from; j < to; j++) {
+            double dx = sortedX[j] - sortedX[i];
+            double dy = sortedY[j] - sortedY[i];
+            if (dx * dx + dy * dy < separationSquared) {
+                out.add(i, j);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the cell-ordered layout, if anything has changed since it was last built.
+     */
+    private void sort()
+    {
+        if (sorted) {
+            return;
+        }
+        int[] order = sortedPlanes;
+        int orderCount = sortedCount;
+        sortedPlanes = previousPlanes;
+        previousPlanes = order;
+
+        // Count the planes in each cell, at cellStarts[cell + 1]. Planes removed since the last
+        // layout are dropped from it here.
+        int[] starts = cellStarts;
+        Arrays.fill(starts, 0);
+        for (int k = 0; k < orderCount; k++) {
+            int index = order[k];
+            int cell = cells[index];
+            if (cell == NONE) {
+                listed[index] = false;
+            } else {
+                starts[cell + 1]++;
+            }
+        }
+        for (int k = 0; k < insertedCount; k++) {
+            int index = inserted[k];
+            int cell = cells[index];
+            if (cell == NONE) {
+                listed[index] = false;
+            } else {
+                starts[cell + 1]++;
+            }
+        }
+        for (int c = 1; c < starts.length; c++) {
+            starts[c] += starts[c - 1];
+        }
+
+        // Place each plane at the next free position in its cell, using cellStarts[cell] as that
+        // cell's cursor, which leaves each cell's start in the next cell's entry...
+        for (int k = 0; k < orderCount; k++) {
+            place(order[k]);
+        }
+        for (int k = 0; k < insertedCount; k++) {
+            place(inserted[k]);
+        }
+        // ...so shift them back.
+        System.arraycopy(starts, 0, starts, 1, starts.length - 1);
+        starts[0] = 0;
+
+        sortedCount = size;
+        insertedCount = 0;
+        sorted = true;
+    }
+
+    private void place(int index)
+    {
+        int cell = cells[index];
+        if (cell != NONE) {
+            int position = cellStarts[cell]++;
+            sortedPlanes[position] = index;
+            sortedCells[position] = cell;
+            sortedX[position] = fleet.getX(index);
+            sortedY[position] = fleet.getY(index);
+        }
+    }
+
+    /**
+     * Rebuilds the layout as sort() does, split between the pool's threads. The planes are
+     * first grouped by band of rows (counting, then scattering, a chunk of them per task), keeping
+     * their order within each band; then each band's planes are sorted into its own cells, whose
+     * part of cellStarts no other band touches.
+     */
+    private void sortInParallel(ForkJoinPool pool)
+    {
+        if (sorted) {
+            return;
+        }
+        int[] order = sortedPlanes;
+        int orderCount = sortedCount;
+        sortedPlanes = previousPlanes;
+        previousPlanes = order;
+
+        int total = orderCount + insertedCount;
+        int chunks = (total + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        int rowsPerBand = Math.max(1, (rows + pool.getParallelism() * BANDS_PER_THREAD - 1) / (pool.getParallelism() * BANDS_PER_THREAD));
+        int cellsPerBand = rowsPerBand * columns;
+        int bands = (rows + rowsPerBand - 1) / rowsPerBand;
+
+        // Count each chunk's planes in each band. Planes removed since the last layout are dropped
+        // from it here.
+        int[][] offsets = new int[chunks][bands];
+        pool.invoke(new ForEachPart(0, chunks, chunk -> {
+            int[] counts = offsets[chunk];
+            for (int k = chunk * PARALLEL_CHUNK; k < Math.min((chunk + 1) * PARALLEL_CHUNK, total); k++) {
+                int index = (k < orderCount) ? order[k] : inserted[k - orderCount];
+                int cell = cells[index];
+                if (cell == NONE) {
+                    listed[index] = false;
+                } else {
+                    counts[cell / cellsPerBand]++;
+                }
+            }
+        }));
+
+        // Where each chunk's planes in each band go: bands in order, and chunks in order within
+        // a band.
+        int[] bandStarts = new int[bands + 1];
+        int position = 0;
+        for (int band = 0; band < bands; band++) {
+            bandStarts[band] = position;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = offsets[chunk][band];
+                offsets[chunk][band] = position;
+                position += count;
+            }
+        }
+        bandStarts[bands] = position;
+
+        pool.invoke(new ForEachPart(0, chunks, chunk -> {
+            int[] next = offsets[chunk];
+            for (int k = chunk * PARALLEL_CHUNK; k < Math.min((chunk + 1) * PARALLEL_CHUNK, total); k++) {
+                int index = (k < orderCount) ? order[k] : inserted[k - orderCount];
+                int cell = cells[index];
+                if (cell != NONE) {
+                    bucketed[next[cell / cellsPerBand]++] = index;
+                }
+            }
+        }));
+
+        int cellCount = columns * rows;
+        pool.invoke(new ForEachPart(0, bands, band -> sortBand(
+                band * cellsPerBand, Math.min((band + 1) * cellsPerBand, cellCount), bandStarts[band], bandStarts[band + 1])));
+        cellStarts[cellCount] = position;
+
+        sortedCount = size;
+        insertedCount = 0;
+        sorted = true;
+    }
+
+    /**
+     * Sorts the planes at bucketed[from, to), which are all in cells [firstCell, endCell), into
+     * those cells' part of the layout, which starts at position 'from'.
+     */
+    private void sortBand(int firstCell, int endCell, int from, int to)
+    {
+        int[] starts = cellStarts;
+        Arrays.fill(starts, firstCell, endCell, 0);
+        for (int p = from; p < to; p++) {
+            starts[cells[bucketed[p]]]++;
+        }
+        int position = from;
+        for (int c = firstCell; c < endCell; c++) {
+            int count = starts[c];
+            starts[c] = position;
+            position += count;
+        }
+
+        // As in sort(), each cell's cursor ends up at the next cell's start...
+        for (int p = from; p < to; p++) {
+            place(bucketed[p]);
+        }
+        // ...so shift them back.
+        System.arraycopy(starts, firstCell, starts, firstCell + 1, endCell - firstCell - 1);
+        starts[firstCell] = from;
+    }
+
+    private int column(double x)
+    {
+        return Math.min(Math.max((int) (x / cellSize), 0), columns - 2);
+    }
+
+    private int row(double y)
+    {
+        return Math.min(Math.max((int) (y / cellSize), 0), rows - 2);
+    }
+
+    private int cellOf(double x, double y)
+    {
+        return row(y) * columns + column(x);
+    }
+
+    /**
+     * Conflicting pairs (by layout position) found by a sweep, collected in a fixed-size batch.
+     * Each full batch is flushed either straight to a handler or, for a parallel check, onto a
+     * list kept to be reported later.
+     */
+    private final class PairBuffer
+    {
+        private final int[] firsts = new int[PAIR_BATCH];
+        private final int[] seconds = new int[PAIR_BATCH];
+        private int count = 0;          // In the batch.
+        private int total = 0;          // Flushed since reset().
+        private ConflictHandler handler;
+        private int[] keptFirsts = new int[0];
+        private int[] keptSeconds = new int[0];
+
+        /**
+         * Empties the buffer, which from now on flushes pairs to the given handler, or keeps them
+         * if it is null.
+         */
+        private void reset(ConflictHandler newHandler)
+        {
+            handler = newHandler;
+            count = 0;
+            total = 0;
+        }
+
+        private void add(int first, int second)
+        {
+            if (count == PAIR_BATCH) {
+                flush();
+            }
+            firsts[count] = first;
+            seconds[count] = second;
+            count++;
+        }
+
+        private void flush()
+        {
+            if (handler == null) {
+                if (total + count > keptFirsts.length) {
+                    int capacity = Math.max(total + count, keptFirsts.length * 2);
+                    keptFirsts = Arrays.copyOf(keptFirsts, capacity);
+                    keptSeconds = Arrays.copyOf(keptSeconds, capacity);
+                }
+                System.arraycopy(firsts, 0, keptFirsts, total, count);
+                System.arraycopy(seconds, 0, keptSeconds, total, count);
+            } else {
+                for (int k = 0; k < count; k++) {
+                    handler.conflict(sortedPlanes[firsts[k]], sortedPlanes[seconds[k]]);
+                }
+            }
+            total += count;
+            count = 0;
+        }
+
+        /**
+         * Passes the kept pairs to the given handler, and returns how many there were.
+         */
+        private int reportKept(ConflictHandler target)
+        {
+            for (int k = 0; k < total; k++) {
+                target.conflict(sortedPlanes[keptFirsts[k]], sortedPlanes[keptSeconds[k]]);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Runs an action for each of the parts [from, to) (e.g. chunks or bands), splitting them in
+     * half until there is one per task.
+     */
+    private static final class ForEachPart extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        /* default */ ForEachPart(int from, int to, IntConsumer action)
+        {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1) {
+                action.accept(from);
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ForEachPart(from, middle, action), new ForEachPart(middle, to, action));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Decoded icon images, and pre-rendered copies of them at the size they are currently drawn and
+ * at a set of common angles, so that drawing an icon is a plain, unscaled image copy rather than
+ * a transformed and scaled one.
+ *
+ * Images are decoded once per resource (loadImage()), and shared by every icon that uses them.
+ * Each GridArea keeps its own SpriteCache of pre-rendered sprites for its current grid square
+ * size; they are rendered as first needed and all thrown away when the size changes (the window
+ * is resized or the view zoomed).
+ *
+ * JavaFX thread only.
+ */
+public class SpriteCache
+{
+    /** Sprites are rendered at rotations that are multiples of 360 / ANGLES degrees. */
+    public static final int ANGLES = 24;
+
+    /** Icons drawn larger than this (in pixels) are not pre-rendered. */
+    public static final int MAX_SPRITE_PIXELS = 256;
+
+    private static final Map<String, Image> IMAGES = new HashMap<>();
+
+    private final Map<Image, Image[]> sprites = new IdentityHashMap<>();
+    private final SnapshotParameters snapshotParameters = new SnapshotParameters();
+    private Canvas canvas = null;
+    private int size = 0;
+
+    public SpriteCache()
+    {
+        snapshotParameters.setFill(Color.TRANSPARENT);
+    }
+
+    /**
+     * Returns the decoded image from the given classpath resource, decoding it only the first
+     * time it is asked for.
+     */
+    public static Image loadImage(String resource)
+    {
+        Image image = IMAGES.get(resource);
+        if (image == null) {
+            try (InputStream stream = SpriteCache.class.getClassLoader().getResourceAsStream(resource)) {
+                if (stream == null) {
+                    throw new IllegalArgumentException("No such image resource: " + resource);
+                }
+                image = new Image(stream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            IMAGES.put(resource, image);
+        }
+        return image;
+    }
+
+    /**
+     * Sets the size (in pixels) of the square icons are drawn to fit in, discarding all the
+     * sprites if it has changed.
+     */
+    public void setSize(double squareSize)
+    {
+        int newSize = (int) Math.round(squareSize);
+        if (newSize != size) {
+            size = newSize;
+            sprites.clear();
+        }
+    }
+
+    /**
+     * Returns the given image scaled to fit the current square size, keeping its aspect ratio,
+     * and rotated clockwise by (about) the given angle in degrees, centred in a square big enough
+     * for any rotation. Returns null if the current size is too big (or small) to pre-render.
+     */
+    public Image getSprite(Image image, double rotation)
+    {
+        if (size < 1 || size > MAX_SPRITE_PIXELS) {
+            return null;
+        }
+        int angle = Math.floorMod((int) Math.round(rotation * ANGLES / 360.0), ANGLES);
+        Image[] rotations = sprites.computeIfAbsent(image, key -> new Image[ANGLES]);
+        if (rotations[angle] == null) {
+            rotations[angle] = render(image, angle * 360.0 / ANGLES);
+        }
+        return rotations[angle];
+    }
+
+    private Image render(Image image, double rotation)
+    {
+        int side = (int) Math.ceil(size * Math.sqrt(2.0));
+        if (canvas == null) {
+            canvas = new Canvas(side, side);
+        } else {
+            canvas.setWidth(side);
+            canvas.setHeight(side);
+        }
+
+        double width;
+        double height;
+        if (image.getWidth() > image.getHeight()) {
+            width = size;
+            height = size * image.getHeight() / image.getWidth();
+        } else {
+            height = size;
+            width = size * image.getWidth() / image.getHeight();
+        }
+
+        GraphicsContext gfx = canvas.getGraphicsContext2D();
+        gfx.clearRect(0.0, 0.0, side, side);
+        gfx.save();
+        gfx.translate(side / 2.0, side / 2.0);
+        gfx.rotate(rotation);
+        gfx.drawImage(image, -width / 2.0, -height / 2.0, width, height);
+        gfx.restore();
+        return canvas.snapshot(snapshotParameters, new WritableImage(side, side));
+    }
+}
@@ -0,0 +1,215 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates flight requests at a given network-wide rate, for load testing, from a single thread.
+ * Requests arrive as a Poisson process (with exponentially-distributed gaps), under one of these
+ * profiles:
+ *
+ *   POISSON        A steady rate, between uniformly random pairs of airports.
+ *   BURSTY         The rate is multiplied by a burst factor for a while, then drops back, in a
+ *                  repeating on/off cycle.
+ *   HUB_AND_SPOKE  A given share of requests go to or from one of a set of hub airports; the
+ *                  rest are between uniformly random pairs.
+ *
+ * Rather than sleeping between requests (which can't be done at millions per second), run()
+ * wakes at most every MAX_SLEEP_NANOS and emits every request that has fallen due since, as one
+ * batch. If the sink can't keep up, requests more than MAX_LAG_NANOS overdue are skipped rather
+ * than delivered as one huge burst.
+ *
+ * Requests are timed from the start of generation, and all choices come from a Random seeded by
+ * the caller, so generate() produces the same sequence for the same seed, in real or virtual time.
+ */
+public class SyntheticTraffic implements TrafficSource
+{
+    public enum Profile
+    {
+        POISSON, BURSTY, HUB_AND_SPOKE
+    }
+
+    public static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final long MAX_LAG_NANOS = TimeUnit.SECONDS.toNanos(1);
+    public static final double DEFAULT_BURST_FACTOR = 10.0;
+    public static final long DEFAULT_BURST_ON_MILLIS = 1000;
+    public static final long DEFAULT_BURST_OFF_MILLIS = 4000;
+    public static final double DEFAULT_HUB_SHARE = 0.8;
+
+    private final int numAirports;
+    private final Profile profile;
+    private final double ratePerNano;
+    private final Random random;
+    private double burstFactor = DEFAULT_BURST_FACTOR;
+    private long burstOnNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BURST_ON_MILLIS);
+    private long burstOffNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BURST_OFF_MILLIS);
+    private int[] hubs = {0};
+    private double hubShare = DEFAULT_HUB_SHARE;
+    private double nextDueNanos;
+    private long generated = 0;
+    private volatile long skipped = 0;  // Written only by run(), read by the metrics.
+
+    /**
+     * Creates a generator of 'ratePerSecond' requests per second (the base rate, for BURSTY) among
+     * the given number of airports.
+     */
+    public SyntheticTraffic(int numAirports, Profile profile, double ratePerSecond, long seed)
+    {
+        if (numAirports < 2) {
+            throw new IllegalArgumentException("At least 2 airports are needed to generate flight requests");
+        }
+        if (ratePerSecond <= 0.0) {
+            throw new IllegalArgumentException("The request rate must be positive");
+        }
+        this.numAirports = numAirports;
+        this.profile = profile;
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.random = new Random(seed);
+        this.nextDueNanos = nextGap(0.0);
+    }
+
+    /**
+     * Sets the BURSTY profile's cycle: 'onMillis' at 'factor' times the base rate, then 'offMillis'
+     * at the base rate.
+     */
+    public void setBursts(double factor, long onMillis, long offMillis)
+    {
+        if (factor <= 0.0 || onMillis < 0 || offMillis < 0 || onMillis + offMillis == 0) {
+            throw new IllegalArgumentException("Invalid burst cycle");
+        }
+        this.burstFactor = factor;
+        this.burstOnNanos = TimeUnit.MILLISECONDS.toNanos(onMillis);
+        this.burstOffNanos = TimeUnit.MILLISECONDS.toNanos(offMillis);
+    }
+
+    /**
+     * Sets the HUB_AND_SPOKE profile's hubs (by 0-based airport index), and the share of requests
+     * (0 to 1) that go to or from one of them.
+     */
+    public void setHubs(int[] hubIndexes, double share)
+    {
+        if (hubIndexes.length == 0 || share < 0.0 || share > 1.0) {
+            throw new IllegalArgumentException("Need at least one hub, and a share between 0 and 1");
+        }
+        for (int hub : hubIndexes) {
+            if (hub < 0 || hub >= numAirports) {
+                throw new IllegalArgumentException("No such hub airport: " + (hub + 1));
+            }
+        }
+        this.hubs = hubIndexes.clone();
+        this.hubShare = share;
+    }
+
+    /**
+     * Generates requests in real time until the thread is interrupted.
+     */
+    @Override
+    public void run(FlightRequestGenerator.Sink sink) throws InterruptedException
+    {
+        long startNanos = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime() - startNanos;
+            if (now - nextDueNanos > MAX_LAG_NANOS) {
+                skipTo(now);
+            }
+            if (generate(now, sink) == 0) {
+                long wait = Math.min((long) Math.ceil(nextDueNanos) - now, MAX_SLEEP_NANOS);
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes every request due up to the given time (in nanoseconds since generation started) to
+     * the sink, followed by one flush() if there were any, and returns how many there were.
+     */
+    public int generate(long untilNanos, FlightRequestGenerator.Sink sink)
+    {
+        int count = 0;
+        while (nextDueNanos <= untilNanos && !Thread.currentThread().isInterrupted()) {
+            emit(sink);
+            nextDueNanos += nextGap(nextDueNanos);
+            count++;
+        }
+        if (count > 0) {
+            generated += count;
+            sink.flush();
+        }
+        return count;
+    }
+
+    /**
+     * Returns when the next request is due, in nanoseconds since generation started.
+     */
+    public long getNextDueNanos()
+    {
+        return (long) Math.ceil(nextDueNanos);
+    }
+
+    /**
+     * Returns the number of requests generated so far.
+     */
+    public long getGeneratedCount()
+    {
+        return generated;
+    }
+
+    /**
+     * Returns the number of requests skipped because the sink couldn't keep up.
+     */
+    @Override
+    public long getSkippedCount()
+    {
+        return skipped;
+    }
+
+    /**
+     * Skips ahead to the given time, counting (roughly) the requests that would have fallen due.
+     */
+    private void skipTo(long now)
+    {
+        skipped += (long) ((now - nextDueNanos) * ratePerNano * getRateFactor(nextDueNanos));
+        nextDueNanos = now;
+    }
+
+    /**
+     * Picks a gap to the next request, at the rate in force at the given time.
+     */
+    private double nextGap(double atNanos)
+    {
+        // 1 - nextDouble() is in (0, 1], so the log is finite.
+        return -Math.log(1.0 - random.nextDouble()) / (ratePerNano * getRateFactor(atNanos));
+    }
+
+    private double getRateFactor(double atNanos)
+    {
+        if (profile != Profile.BURSTY) {
+            return 1.0;
+        }
+        return (atNanos % (burstOnNanos + burstOffNanos) < burstOnNanos) ? burstFactor : 1.0;
+    }
+
+    private void emit(FlightRequestGenerator.Sink sink)
+    {
+        if (profile == Profile.HUB_AND_SPOKE && random.nextDouble() < hubShare) {
+            int hub = hubs[random.nextInt(hubs.length)];
+            int other = otherThan(hub);
+            if (random.nextBoolean()) {
+                sink.request(hub, other);
+            } else {
+                sink.request(other, hub);
+            }
+        } else {
+            int origin = random.nextInt(numAirports);
+            sink.request(origin, otherThan(origin));
+        }
+    }
+
+    private int otherThan(int index)
+    {
+        int other = random.nextInt(numAirports - 1);
+        return (other >= index) ? other + 1 : other;
+    }
+}
@@ -0,0 +1,49 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Replays the flight requests recorded in an EventJournal, e.g. from an earlier run or a
+ * production-like trace, so that the same traffic can be put through the system again. Requests
+ * are delivered at their original pace scaled by a speed-up factor, or as fast as possible.
+ */
+public class TraceTraffic implements TrafficSource
+{
+    private final Path journalDirectory;
+    private final double speed;
+    private long replayed = 0;
+
+    /**
+     * Creates a source replaying the journal in the given directory, at 'speed' times its
+     * original pace (or as fast as possible, if 0).
+     */
+    public TraceTraffic(Path journalDirectory, double speed)
+    {
+        this.journalDirectory = journalDirectory;
+        this.speed = speed;
+    }
+
+    /**
+     * Delivers every recorded request, then returns.
+     */
+    @Override
+    public void run(FlightRequestGenerator.Sink sink) throws IOException, InterruptedException
+    {
+        new JournalReplayer(journalDirectory).replay((type, timeNanos, a, b, c, x, y) -> {
+            if (type == EventJournal.RecordType.FLIGHT_REQUESTED) {
+                sink.request(a - 1, b - 1);
+                sink.flush();
+                replayed++;
+            }
+        }, speed);
+    }
+
+    /**
+     * Returns the number of requests replayed so far.
+     */
+    public long getReplayedCount()
+    {
+        return replayed;
+    }
+}
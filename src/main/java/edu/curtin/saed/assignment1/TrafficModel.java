@@ -0,0 +1,25 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.List;
+
+/**
+ * Something the GUI can display: either a live Simulation, or a ReplayModel playing back a
+ * journal of an earlier run.
+ */
+public interface TrafficModel
+{
+    List<Airport> getAirports();
+
+    /**
+     * Returns all planes, in plane ID order (i.e. plane N is at index N - 1).
+     */
+    List<Plane> getPlanes();
+
+    EventLog getEventLog();
+
+    String getStatusText();
+
+    void start();
+
+    void stop();
+}
@@ -0,0 +1,25 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.IOException;
+
+/**
+ * Somewhere flight requests come from, when they are generated inside the simulation's own JVM
+ * (see FlightRequestIngester and IngestionMode.IN_PROCESS).
+ */
+public interface TrafficSource
+{
+    /**
+     * Passes requests to the sink, as they fall due, until the thread is interrupted (or, for a
+     * finite source, until there are none left).
+     */
+    void run(FlightRequestGenerator.Sink sink) throws IOException, InterruptedException;
+
+    /**
+     * Returns the number of requests this source skipped, rather than deliver late, because the
+     * sink couldn't keep up with it (0 for one that never skips).
+     */
+    default long getSkippedCount()
+    {
+        return 0;
+    }
+}
@@ -0,0 +1,129 @@
+package edu.curtin.saed.assignment1;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A discrete-event scheduler with its own virtual clock. Actions are scheduled for points in
+ * virtual time, and run one at a time, in time order, on the thread calling run(). Rather than
+ * waiting for time to pass, the clock jumps straight to the next action.
+ *
+ * Actions due at the same time run in the order they were scheduled, so a run that makes the same
+ * choices (e.g. from a seeded Random) always does the same thing in the same order.
+ *
+ * By default, run() goes as fast as it can. With setSpeed(), it instead paces itself to that
+ * multiple of real time (e.g. 10 for ten virtual seconds per real second).
+ */
+public class VirtualTimeScheduler
+{
+    private final Queue<Entry> queue = new PriorityQueue<>();
+    private long now = 0;
+    private long sequence = 0;
+    private long processed = 0;
+    private double speed = 0.0;
+
+    /**
+     * Sets how many times faster than real time to run, or 0 to run as fast as possible.
+     */
+    public void setSpeed(double speed)
+    {
+        if (speed < 0.0) {
+            throw new IllegalArgumentException("Speed cannot be negative");
+        }
+        this.speed = speed;
+    }
+
+    /**
+     * Returns the current virtual time, in nanoseconds since the start.
+     */
+    public long now()
+    {
+        return now;
+    }
+
+    /**
+     * Schedules an action to run at the given virtual time (or now, if that has passed).
+     */
+    public void schedule(long timeNanos, Runnable action)
+    {
+        queue.add(new Entry(Math.max(timeNanos, now), sequence++, action));
+    }
+
+    /**
+     * Schedules an action to run the given number of nanoseconds from now.
+     */
+    public void scheduleAfter(long delayNanos, Runnable action)
+    {
+        schedule(now + delayNanos, action);
+    }
+
+    /**
+     * Runs every action due up to and including the given virtual time, then advances the clock
+     * to it. Actions may schedule further actions, which also run if they are due in time.
+     */
+    public void run(long untilNanos) throws InterruptedException
+    {
+        long wallStart = System.nanoTime();
+        long virtualStart = now;
+        Entry next;
+        while ((next = queue.peek()) != null && next.time <= untilNanos) {
+            if (speed > 0.0) {
+                long wait = wallStart + (long) ((next.time - virtualStart) / speed) - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            } else if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            queue.poll();
+            now = next.time;
+            next.action.run();
+            processed++;
+        }
+        if (speed > 0.0) {
+            long wait = wallStart + (long) ((untilNanos - virtualStart) / speed) - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+        now = Math.max(now, untilNanos);
+    }
+
+    /**
+     * Returns the number of actions run so far.
+     */
+    public long getProcessedCount()
+    {
+        return processed;
+    }
+
+    /**
+     * Returns the number of actions scheduled but not yet run.
+     */
+    public int getPendingCount()
+    {
+        return queue.size();
+    }
+
+    private static final class Entry implements Comparable<Entry>
+    {
+        private final long time;
+        private final long sequence;
+        private final Runnable action;
+
+        private Entry(long time, long sequence, Runnable action)
+        {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Entry other)
+        {
+            int byTime = Long.compare(time, other.time);
+            return (byTime == 0) ? Long.compare(sequence, other.sequence) : byTime;
+        }
+    }
+}
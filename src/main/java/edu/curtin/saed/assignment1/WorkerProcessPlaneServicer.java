@@ -0,0 +1,161 @@
+package edu.curtin.saed.assignment1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends services to a long-lived PlaneServiceWorker JVM. This avoids starting a new JVM for every
+ * service. The worker is started on first use, and restarted if it dies.
+ *
+ * Up to 'concurrency' threads may call service() at once: the worker has that many threads to run
+ * the services it is sent at the same time, and each is tagged, so that its result (whenever it
+ * comes back) goes to the thread that asked for it. A reader thread per worker hands the results
+ * out.
+ *
+ * close() may be called from another thread to abort the services in progress. It first closes
+ * the worker's standard input, which lets the worker exit by itself, and only destroys a worker
+ * that is still running after EXIT_GRACE_MILLIS. Once closed, the worker is never restarted, and
+ * no more services are sent.
+ */
+public class WorkerProcessPlaneServicer implements PlaneServicer
+{
+    public static final long EXIT_GRACE_MILLIS = 200;
+
+    private final int concurrency;
+    private final Object lock = new Object();
+    private Process worker;
+    private BufferedWriter toWorker;
+    private final Map<Long, CompletableFuture<String>> pending = new HashMap<>();  // By tag.
+    private long nextTag = 0;
+    private boolean closed = false;  // Guarded by lock, as is everything above.
+
+    public WorkerProcessPlaneServicer(int concurrency)
+    {
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public String service(int airportId, int planeId) throws IOException
+    {
+        long tag;
+        CompletableFuture<String> result = new CompletableFuture<>();
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("Plane servicer closed");
+            }
+            if (worker == null || !worker.isAlive()) {
+                startWorker();
+            }
+            tag = nextTag++;
+            pending.put(tag, result);
+            try {
+                toWorker.write(tag + " " + airportId + " " + planeId);
+                toWorker.newLine();
+                toWorker.flush();
+            } catch (IOException e) {
+                closeWorker(new IOException("Plane service worker exited unexpectedly", e));
+                throw e;
+            }
+        }
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            synchronized (lock) {
+                pending.remove(tag);
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a service", e);
+        }
+    }
+
+    private void startWorker() throws IOException
+    {
+        closeWorker(new IOException("Plane service worker exited unexpectedly"));
+        Process process = Simulation.execJava(PlaneServiceWorker.class, String.valueOf(concurrency));
+        worker = process;
+        toWorker = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        BufferedReader fromWorker = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Thread reader = new Thread(() -> readResults(process, fromWorker), "plane-service-results");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Passes each result from the given worker to the thread waiting for it, until the worker's
+     * output ends. If that is because the worker died, fails any services still waiting.
+     */
+    private void readResults(Process process, BufferedReader fromWorker)
+    {
+        try (fromWorker) {
+            String line;
+            while ((line = fromWorker.readLine()) != null) {
+                int space = line.indexOf(' ');
+                long tag = Long.parseLong((space < 0) ? line : line.substring(0, space));
+                CompletableFuture<String> result;
+                synchronized (lock) {
+                    result = pending.remove(tag);
+                }
+                if (result != null) {
+                    result.complete((space < 0) ? "" : line.substring(space + 1));
+                }
+            }
+        } catch (IOException | NumberFormatException e) { // NOPMD - empty catch
+            // Treated as the worker having died, below.
+        }
+        synchronized (lock) {
+            // Unless close() or a restart got here first, the worker died; the next service
+            // restarts it.
+            if (worker == process) { // NOPMD - same worker, not equal workers
+                closeWorker(new IOException("Plane service worker exited unexpectedly"));
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized (lock) {
+            closed = true;
+            closeWorker(new IOException("Plane servicer closed"));
+        }
+    }
+
+    /**
+     * Stops the worker, if there is one, and fails every service still waiting with the given
+     * exception.
+     */
+    private void closeWorker(IOException reason)
+    {
+        if (worker != null) {
+            try {
+                toWorker.close();
+                if (!worker.waitFor(EXIT_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                    worker.destroy();
+                }
+            } catch (IOException e) {
+                worker.destroy();  // Its input is already broken, so it won't exit by itself.
+            } catch (InterruptedException e) {
+                worker.destroy();
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+            toWorker = null;
+        }
+        for (CompletableFuture<String> result : pending.values()) {
+            result.completeExceptionally(reason);
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,45 @@
+package edu.curtin.saed.assignment1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that a DiscreteEventSimulation is repeatable: runs it twice from the same seed, with the
+ * airports' own requests and then with each kind of synthetic traffic, and expects the two runs to
+ * have the same fingerprint.
+ */
+public class DeterminismTest
+{
+    private static final long SEED = 42;
+    private static final int AIRPORTS = 50;
+    private static final int PLANES = 3;
+    private static final int SECONDS = 600;
+    private static final double SYNTHETIC_RATE = 50.0;  // Requests per second, over all airports.
+
+    @Test
+    public void classicTrafficIsRepeatable() throws InterruptedException
+    {
+        assertEquals(run(null), run(null), "classic traffic with seed " + SEED);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SyntheticTraffic.Profile.class)
+    public void syntheticTrafficIsRepeatable(SyntheticTraffic.Profile profile) throws InterruptedException
+    {
+        assertEquals(run(profile), run(profile), profile + " traffic with seed " + SEED);
+    }
+
+    private static long run(SyntheticTraffic.Profile profile) throws InterruptedException
+    {
+        DiscreteEventSimulation simulation = new DiscreteEventSimulation(AIRPORTS, PLANES, SEED);
+        if (profile != null) {
+            simulation.setTraffic(new SyntheticTraffic(AIRPORTS, profile, SYNTHETIC_RATE, SEED));
+        }
+        simulation.run(TimeUnit.SECONDS.toNanos(SECONDS));
+        return simulation.getFingerprint();
+    }
+}
@@ -0,0 +1,129 @@
+package edu.curtin.saed.assignment1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class EventLogTest
+{
+    @Test
+    public void rejectsCapacityThatIsNotAPowerOfTwo()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new EventLog(100));
+    }
+
+    @Test
+    public void readsEventsBackInOrder()
+    {
+        EventLog log = new EventLog(16);
+        log.log(EventType.PLANE_LANDED, 1, 2, 3);
+        log.log(EventType.SEPARATION_CONFLICT, "text");
+
+        List<Object[]> events = new ArrayList<>();
+        assertEquals(2, log.drain((type, a, b, c, text) -> events.add(new Object[] {type, a, b, c, text}), 10));
+        assertEquals(EventType.PLANE_LANDED, events.get(0)[0]);
+        assertEquals(1, events.get(0)[1]);
+        assertEquals(2, events.get(0)[2]);
+        assertEquals(3, events.get(0)[3]);
+        assertNull(events.get(0)[4]);
+        assertEquals(EventType.SEPARATION_CONFLICT, events.get(1)[0]);
+        assertEquals("text", events.get(1)[4]);
+
+        assertEquals(0, log.drain((type, a, b, c, text) -> { }, 10));
+        assertEquals(2, log.getLoggedCount());
+    }
+
+    @Test
+    public void drainsNoMoreThanAskedFor()
+    {
+        EventLog log = new EventLog(16);
+        for (int i = 0; i < 5; i++) {
+            log.log(EventType.PLANE_LANDED, i, 0, 0);
+        }
+        List<Integer> read = new ArrayList<>();
+        assertEquals(3, log.drain((type, a, b, c, text) -> read.add(a), 3));
+        assertEquals(2, log.drain((type, a, b, c, text) -> read.add(a), 3));
+        assertEquals(List.of(0, 1, 2, 3, 4), read);
+    }
+
+    @Test
+    public void overwritesTheOldestUnreadEvents()
+    {
+        EventLog log = new EventLog(8);
+        for (int i = 0; i < 11; i++) {
+            log.log(EventType.PLANE_LANDED, i, 0, 0);
+        }
+        List<Integer> read = new ArrayList<>();
+        assertEquals(8, log.drain((type, a, b, c, text) -> read.add(a), 100));
+        assertEquals(List.of(3, 4, 5, 6, 7, 8, 9, 10), read);
+        assertEquals(3, log.getOverwrittenCount());
+        assertEquals(0, log.getDroppedCount());
+    }
+
+    /**
+     * Several writers log into a small ring while one reader drains it. Every event read must be
+     * whole (never torn between two writers' events) and read only once, and every event not read
+     * must be counted as dropped or overwritten. (One lost event may be counted as both, once by
+     * its writer and once by the reader, so the counts may add up to more than were logged.)
+     */
+    @Test
+    public void concurrentWritersAreReadWholeOrCounted() throws InterruptedException
+    {
+        int writers = 4;
+        int perWriter = 100_000;
+        EventLog log = new EventLog(256);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perWriter; i++) {
+                    int value = writer * perWriter + i;
+                    log.log(EventType.PLANE_LANDED, value, -value, value ^ 0x5555);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        AtomicBoolean torn = new AtomicBoolean(false);
+        BitSet seen = new BitSet(writers * perWriter);
+        AtomicBoolean repeated = new AtomicBoolean(false);
+        EventLog.Reader reader = (type, a, b, c, text) -> {
+            if (b != -a || c != (a ^ 0x5555)) {
+                torn.set(true);
+            } else if (seen.get(a)) {
+                repeated.set(true);
+            } else {
+                seen.set(a);
+            }
+        };
+        long read = 0;
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            read += log.drain(reader, 64);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // A drain stops once at an event that is not published yet, so it takes a few more to
+        // get past any whose writers gave up.
+        for (int i = 0; i < 1000 && read + log.getDroppedCount() + log.getOverwrittenCount() < log.getLoggedCount(); i++) {
+            read += log.drain(reader, Integer.MAX_VALUE);
+        }
+
+        assertFalse(torn.get(), "an event was read torn");
+        assertFalse(repeated.get(), "an event was read twice");
+        assertEquals((long) writers * perWriter, log.getLoggedCount());
+        assertEquals(seen.cardinality(), read);
+        assertTrue(read + log.getDroppedCount() + log.getOverwrittenCount() >= log.getLoggedCount(),
+                "events were lost without being counted");
+    }
+}
@@ -0,0 +1,91 @@
+package edu.curtin.saed.assignment1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class FlightRequestParserTest
+{
+    private final FlightRequestRing ring = new FlightRequestRing(64);
+
+    @Test
+    public void parsesOriginAndDestinationAsAirportIds() throws IOException, InterruptedException
+    {
+        FlightRequestParser parser = parse(FlightRequestParser.NO_FIXED_ORIGIN, "0 1\n4 2\r\n12 345\n");
+        assertEquals(List.of("1-2", "5-3", "13-346"), taken());
+        assertEquals(0, parser.getMalformedLines());
+    }
+
+    @Test
+    public void usesTheFixedOrigin() throws IOException, InterruptedException
+    {
+        FlightRequestParser parser = parse(3, "0\n7\n");
+        assertEquals(List.of("4-1", "4-8"), taken());
+        assertEquals(0, parser.getMalformedLines());
+    }
+
+    @Test
+    public void skipsAndCountsMalformedLines() throws IOException, InterruptedException
+    {
+        FlightRequestParser parser = parse(FlightRequestParser.NO_FIXED_ORIGIN, "1 x\n5\n1 2 3\n-1 2\n\n2 3\n");
+        assertEquals(List.of("3-4"), taken());
+        assertEquals(4, parser.getMalformedLines());  // The blank line doesn't count.
+    }
+
+    @Test
+    public void rejectsNumbersTooBigForAnAirportId() throws IOException, InterruptedException
+    {
+        FlightRequestParser parser = parse(FlightRequestParser.NO_FIXED_ORIGIN,
+                "99999999999999999999 1\n2147483647 0\n1 4294967297\n2147483646 0\n");
+        assertEquals(List.of(Integer.MAX_VALUE + "-1"), taken());
+        assertEquals(3, parser.getMalformedLines());
+    }
+
+    @Test
+    public void parsesNumbersSplitBetweenReads() throws IOException, InterruptedException
+    {
+        FlightRequestParser parser = new FlightRequestParser(ring, FlightRequestParser.NO_FIXED_ORIGIN);
+        byte[] bytes = "123 456\n7 8\n".getBytes(StandardCharsets.US_ASCII);
+        // Hands the parser one byte per read.
+        parser.parse(new InputStream() {
+            private int next = 0;
+
+            @Override
+            public int read()
+            {
+                return (next < bytes.length) ? bytes[next++] : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len)
+            {
+                if (next >= bytes.length) {
+                    return -1;
+                }
+                b[off] = bytes[next++];
+                return 1;
+            }
+        });
+        assertEquals(List.of("124-457", "8-9"), taken());
+    }
+
+    private FlightRequestParser parse(int fixedOriginIndex, String input) throws IOException, InterruptedException
+    {
+        FlightRequestParser parser = new FlightRequestParser(ring, fixedOriginIndex);
+        parser.parse(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)));
+        return parser;
+    }
+
+    private List<String> taken()
+    {
+        List<String> requests = new ArrayList<>();
+        ring.drain((origin, destination, created) -> requests.add(origin + "-" + destination), ring.capacity());
+        return requests;
+    }
+}
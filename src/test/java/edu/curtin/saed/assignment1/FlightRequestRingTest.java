@@ -0,0 +1,152 @@
+package edu.curtin.saed.assignment1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class FlightRequestRingTest
+{
+    @Test
+    public void rejectsCapacityThatIsNotAPowerOfTwo()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new FlightRequestRing(12));
+        assertThrows(IllegalArgumentException.class, () -> new FlightRequestRing(1));
+    }
+
+    @Test
+    public void drainsRequestsInOrder()
+    {
+        FlightRequestRing ring = new FlightRequestRing(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.offer(i, i + 10, i * 100L));
+        }
+        assertEquals(5, ring.size());
+
+        List<long[]> taken = new ArrayList<>();
+        assertEquals(5, ring.drain((origin, destination, created) -> taken.add(new long[] {origin, destination, created}), 10));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, taken.get(i)[0]);
+            assertEquals(i + 10, taken.get(i)[1]);
+            assertEquals(i * 100L, taken.get(i)[2]);
+        }
+        assertTrue(ring.isEmpty());
+        assertEquals(0, ring.drain((origin, destination, created) -> { }, 10));
+    }
+
+    @Test
+    public void drainsNoMoreThanAskedFor()
+    {
+        FlightRequestRing ring = new FlightRequestRing(8);
+        for (int i = 0; i < 6; i++) {
+            ring.offer(i, i, 0);
+        }
+        List<Integer> origins = new ArrayList<>();
+        assertEquals(4, ring.drain((origin, destination, created) -> origins.add(origin), 4));
+        assertEquals(List.of(0, 1, 2, 3), origins);
+        assertEquals(2, ring.size());
+    }
+
+    @Test
+    public void refusesRequestsWhenFullAndWrapsAround()
+    {
+        FlightRequestRing ring = new FlightRequestRing(4);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(ring.offer(round, i, 0));
+            }
+            assertFalse(ring.offer(round, 4, 0));
+
+            List<Integer> destinations = new ArrayList<>();
+            ring.drain((origin, destination, created) -> destinations.add(destination), 10);
+            assertEquals(List.of(0, 1, 2, 3), destinations);
+        }
+        assertEquals(12, ring.getAddedCount());
+    }
+
+    @Test
+    public void forEachQueuedLeavesRequestsQueued()
+    {
+        FlightRequestRing ring = new FlightRequestRing(8);
+        ring.offer(1, 2, 3);
+        ring.offer(4, 5, 6);
+        List<Integer> origins = new ArrayList<>();
+        ring.forEachQueued((origin, destination, created) -> origins.add(origin));
+        assertEquals(List.of(1, 4), origins);
+        assertEquals(2, ring.drain((origin, destination, created) -> { }, 10));
+    }
+
+    @Test
+    public void awaitTimesOutWhenEmptyAndWakesForARequest() throws InterruptedException
+    {
+        FlightRequestRing ring = new FlightRequestRing(8);
+        assertFalse(ring.await(10, TimeUnit.MILLISECONDS));
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ring.offer(1, 2, 3);
+        });
+        producer.start();
+        assertTrue(ring.await(10, TimeUnit.SECONDS));
+        producer.join();
+    }
+
+    /**
+     * Several producers put requests (blocking while the small ring is full) while one consumer
+     * drains them. Every request must arrive exactly once, and each producer's in the order it
+     * put them.
+     */
+    @Test
+    public void concurrentProducersLoseNothing() throws InterruptedException
+    {
+        int producers = 4;
+        int perProducer = 50_000;
+        FlightRequestRing ring = new FlightRequestRing(64);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int origin = p;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        ring.put(origin, i, 0);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        int[] next = new int[producers];
+        boolean[] outOfOrder = new boolean[1];
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (received < producers * perProducer && System.nanoTime() < deadline) {
+            ring.await(10, TimeUnit.MILLISECONDS);
+            received += ring.drain((origin, destination, created) -> {
+                if (destination != next[origin]) {
+                    outOfOrder[0] = true;
+                }
+                next[origin] = destination + 1;
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(producers * perProducer, received);
+        assertFalse(outOfOrder[0], "a producer's requests arrived out of order");
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package edu.curtin.saed.assignment1;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class RenderBufferTest
+{
+    @Test
+    public void hasNothingBeforeTheFirstPublish()
+    {
+        assertNull(new RenderBuffer(3).acquireLatest());
+    }
+
+    @Test
+    public void returnsEachPublishedSnapshotOnce()
+    {
+        RenderBuffer buffer = new RenderBuffer(2);
+        buffer.getBackBuffer().setPosition(0, 1.0, 2.0);
+        buffer.getBackBuffer().setPosition(1, 3.0, 4.0);
+        buffer.publish();
+
+        RenderBuffer.Snapshot snapshot = buffer.acquireLatest();
+        assertNotNull(snapshot);
+        assertEquals(2, snapshot.size());
+        assertEquals(1.0, snapshot.getX(0));
+        assertEquals(4.0, snapshot.getY(1));
+        assertNull(buffer.acquireLatest());
+    }
+
+    @Test
+    public void skipsSnapshotsTheReaderNeverSaw()
+    {
+        RenderBuffer buffer = new RenderBuffer(1);
+        for (int i = 1; i <= 5; i++) {
+            buffer.getBackBuffer().setPosition(0, i, i);
+            buffer.publish();
+        }
+        assertEquals(5.0, buffer.acquireLatest().getX(0));
+        assertNull(buffer.acquireLatest());
+
+        buffer.getBackBuffer().setPosition(0, 6.0, 6.0);
+        buffer.publish();
+        assertEquals(6.0, buffer.acquireLatest().getX(0));
+    }
+
+    /**
+     * A writer publishes snapshots as fast as it can while a reader acquires them. Each snapshot
+     * the reader gets must be whole (every position from the same publish), and newer than the
+     * last one it got.
+     */
+    @Test
+    public void readerOnlySeesWholeAndNewerSnapshots() throws InterruptedException
+    {
+        int size = 64;
+        int publishes = 200_000;
+        RenderBuffer buffer = new RenderBuffer(size);
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread writer = new Thread(() -> {
+            for (int v = 1; v <= publishes; v++) {
+                RenderBuffer.Snapshot back = buffer.getBackBuffer();
+                for (int i = 0; i < size; i++) {
+                    back.setPosition(i, v, -v);
+                }
+                buffer.publish();
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        boolean mixed = false;
+        boolean older = false;
+        double last = 0.0;
+        boolean finished = false;
+        while (!finished) {
+            finished = done.get();  // Then one more look, for the last publish.
+            RenderBuffer.Snapshot snapshot = buffer.acquireLatest();
+            if (snapshot != null) {
+                double version = snapshot.getX(0);
+                for (int i = 0; i < size; i++) {
+                    mixed |= snapshot.getX(i) != version || snapshot.getY(i) != -version;
+                }
+                older |= version <= last;
+                last = version;
+            }
+        }
+        writer.join();
+
+        assertFalse(mixed, "a snapshot mixed positions from different publishes");
+        assertFalse(older, "a snapshot was no newer than the one before");
+        assertEquals((double) publishes, last);
+        assertNull(buffer.acquireLatest());
+    }
+}